@@ -0,0 +1,213 @@
+package com.functional.benchmarks;
+
+import com.functional.v17.PaymentSystem;
+import com.functional.v17.comparisons.FileSystem;
+import com.functional.v21.comparisons.CloudBillingEngine;
+import com.functional.v21.comparisons.Money;
+import com.functional.v21.comparisons.RateCard;
+import com.functional.v8.comparisons.StudentGradingSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic input generators shared by the benchmarks.
+ * Public because JMH-generated code in a subpackage reads the enum params.
+ * Every generator is seeded, so runs across releases measure the same data.
+ */
+public final class BenchmarkData {
+
+    private static final long SEED = 20_240_101L;
+
+    static final String[] DEPARTMENTS = { "CS", "EE", "ME", "CE", "MATH", "PHYS", "CHEM", "BIO" };
+    static final String[] REGIONS = { "US", "EU", "APAC", "LATAM" };
+    static final String[] TIERS = { "STANDARD", "PREMIUM" };
+    static final String[] RESOURCE_TYPES = { "VM", "DB", "S3", "FaaS" };
+
+    /**
+     * Longest chain built for the DEEP tree shape. The recursive
+     * implementations under test overflow the default stack well before
+     * 10,000 levels, so deep trees are a forest of chains this long.
+     */
+    static final int MAX_CHAIN_DEPTH = 1_000;
+
+    private BenchmarkData() {
+    }
+
+    public enum DepartmentShape {
+        /** Students spread evenly over all departments. */
+        UNIFORM,
+        /** 90% of students in CS, the queried department. */
+        SKEWED
+    }
+
+    public enum TreeShape {
+        /** One directory holding every file. */
+        WIDE,
+        /** Chains of nested single-child directories. */
+        DEEP,
+        /** Directories with up to 16 children each. */
+        BALANCED
+    }
+
+    public enum BillingMix {
+        /** Regions and tiers drawn uniformly. */
+        UNIFORM,
+        /** 80% premium EU usage, the first guard in calculateCostModern. */
+        PREMIUM_EU_HEAVY,
+        /** 80% standard non-EU usage, the last guard in calculateCostModern. */
+        STANDARD_OTHER_HEAVY
+    }
+
+    static List<StudentGradingSystem.Student> students(int size, DepartmentShape shape) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<StudentGradingSystem.Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String department = shape == DepartmentShape.SKEWED && random.nextInt(10) < 9 ? "CS"
+                    : DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+            // Two decimals in [0.0, 4.0], so the functional path never sees an invalid GPA
+            double gpa = random.nextInt(401) / 100.0;
+            students.add(new StudentGradingSystem.Student("S" + i, department, gpa));
+        }
+        return students;
+    }
+
+    static FileSystem.Directory modernTree(int files, TreeShape shape) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        return switch (shape) {
+            case WIDE -> {
+                List<FileSystem.Node> children = new ArrayList<>(files);
+                for (int i = 0; i < files; i++) {
+                    children.add(new FileSystem.File("f" + i, random.nextLong(1, 1 << 20)));
+                }
+                yield new FileSystem.Directory("root", children);
+            }
+            case DEEP -> {
+                List<FileSystem.Node> chains = new ArrayList<>();
+                int remaining = files;
+                while (remaining > 0) {
+                    int depth = Math.min(remaining, MAX_CHAIN_DEPTH);
+                    FileSystem.Node node = new FileSystem.File("leaf", random.nextLong(1, 1 << 20));
+                    for (int level = 1; level < depth; level++) {
+                        node = new FileSystem.Directory("d" + level,
+                                List.of(node, new FileSystem.File("f" + level, random.nextLong(1, 1 << 20))));
+                    }
+                    chains.add(node);
+                    remaining -= depth;
+                }
+                yield new FileSystem.Directory("root", chains);
+            }
+            case BALANCED -> balanced(files, random);
+        };
+    }
+
+    private static FileSystem.Directory balanced(int files, SplittableRandom random) {
+        List<FileSystem.Node> level = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            level.add(new FileSystem.File("f" + i, random.nextLong(1, 1 << 20)));
+        }
+        while (level.size() > 1) {
+            List<FileSystem.Node> parents = new ArrayList<>(level.size() / 16 + 1);
+            for (int i = 0; i < level.size(); i += 16) {
+                parents.add(new FileSystem.Directory("d" + i,
+                        List.copyOf(level.subList(i, Math.min(i + 16, level.size())))));
+            }
+            level = parents;
+        }
+        return level.get(0) instanceof FileSystem.Directory d ? d
+                : new FileSystem.Directory("root", List.of(level.get(0)));
+    }
+
+    /**
+     * Converts a modern tree into the equivalent legacy tree.
+     */
+    static FileSystem.FileNode legacyTree(FileSystem.Node node) {
+        return switch (node) {
+            case FileSystem.File f -> new FileSystem.LegacyFile(f.name(), f.size());
+            case FileSystem.Directory d -> {
+                List<FileSystem.FileNode> children = new ArrayList<>(d.children().size());
+                for (FileSystem.Node child : d.children()) {
+                    children.add(legacyTree(child));
+                }
+                yield new FileSystem.LegacyDirectory(d.name(), children);
+            }
+        };
+    }
+
+    static CloudBillingEngine.Usage[] usages(int size, BillingMix mix) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        CloudBillingEngine.Usage[] usages = new CloudBillingEngine.Usage[size];
+        for (int i = 0; i < size; i++) {
+            String region;
+            String tier;
+            boolean dominant = random.nextInt(10) < 8;
+            switch (mix) {
+                case PREMIUM_EU_HEAVY -> {
+                    region = dominant ? "EU" : REGIONS[random.nextInt(REGIONS.length)];
+                    tier = dominant ? "PREMIUM" : TIERS[random.nextInt(TIERS.length)];
+                }
+                case STANDARD_OTHER_HEAVY -> {
+                    region = dominant ? "US" : REGIONS[random.nextInt(REGIONS.length)];
+                    tier = dominant ? "STANDARD" : TIERS[random.nextInt(TIERS.length)];
+                }
+                default -> {
+                    region = REGIONS[random.nextInt(REGIONS.length)];
+                    tier = TIERS[random.nextInt(TIERS.length)];
+                }
+            }
+            String type = RESOURCE_TYPES[random.nextInt(RESOURCE_TYPES.length)];
+            usages[i] = new CloudBillingEngine.Usage(
+                    new CloudBillingEngine.Resource(type, new CloudBillingEngine.Identity(region, tier)),
+                    random.nextInt(1, 10_000));
+        }
+        return usages;
+    }
+
+    static PaymentSystem.PaymentMethod[] paymentMethods(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        PaymentSystem.PaymentMethod[] methods = new PaymentSystem.PaymentMethod[size];
+        for (int i = 0; i < size; i++) {
+            methods[i] = switch (random.nextInt(3)) {
+                case 0 -> new PaymentSystem.CreditCard("4000" + random.nextLong(100_000_000_000L, 1_000_000_000_000L), "12/30");
+                case 1 -> new PaymentSystem.PayPal("user" + i + "@example.com");
+                default -> new PaymentSystem.Crypto("0x" + Long.toHexString(random.nextLong()), "ETH");
+            };
+        }
+        return methods;
+    }
+
+    /** Amounts with at most two decimals, like real charges. */
+    static double[] paymentAmounts(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        double[] amounts = new double[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = random.nextInt(1, 1_000_000) / 100.0;
+        }
+        return amounts;
+    }
+
+    /**
+     * The default rate card padded to the given number of rules: first exact
+     * rules for real type/region/tier combinations, then rules for synthetic
+     * types that never match, so only the table grows.
+     */
+    static RateCard rateCard(int rules) {
+        List<RateCard.Rule> result = new ArrayList<>(RateCard.defaults().rules());
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (String type : RESOURCE_TYPES) {
+            for (String region : REGIONS) {
+                for (String tier : TIERS) {
+                    if (result.size() < rules) {
+                        result.add(new RateCard.Rule(type, region, tier, Money.ofMicros(random.nextInt(1, 100) * 10_000L)));
+                    }
+                }
+            }
+        }
+        for (int i = 0; result.size() < rules; i++) {
+            result.add(new RateCard.Rule("type-" + i, REGIONS[i % REGIONS.length], TIERS[i % TIERS.length],
+                    Money.ofMicros(random.nextInt(1, 100) * 10_000L)));
+        }
+        return RateCard.of(result);
+    }
+}
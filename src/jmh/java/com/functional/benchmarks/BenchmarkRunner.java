@@ -0,0 +1,58 @@
+package com.functional.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmark suite once per thread count, with the GC profiler on,
+ * writing one machine-readable JSON file per run.
+ *
+ * Usage: BenchmarkRunner [outputDir] [include-regex] [threads...]
+ * Defaults: build/jmh, every benchmark, 1 thread and one per available core.
+ * Results land in {@code <outputDir>/results-threads-<n>.json}; the
+ * gc.alloc.rate.norm metric in those files is the bytes allocated per
+ * operation, which is the number to watch for allocation regressions.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path outputDir = Paths.get(args.length > 0 ? args[0] : "build/jmh");
+        String include = args.length > 1 ? args[1] : "com\\.functional\\.benchmarks\\..*";
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            threadCounts.add(Integer.parseInt(args[i]));
+        }
+        if (threadCounts.isEmpty()) {
+            threadCounts.add(1);
+            int cores = Runtime.getRuntime().availableProcessors();
+            if (cores > 1) {
+                threadCounts.add(cores);
+            }
+        }
+
+        Files.createDirectories(outputDir);
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(outputDir.resolve("results-threads-" + threads + ".json").toString());
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.functional.benchmarks;
+
+import com.functional.v21.comparisons.CloudBillingEngine;
+import com.functional.v21.comparisons.RateResolutionCache;
+import com.functional.v21.comparisons.UsageBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculateCostLegacy vs calculateCostModern (Java 21 comparison), billing a
+ * whole array of usage records per invocation, plus the exact Money path
+ * (calculateCostExact), the memoized calculateCostCached path, and the
+ * columnar rate() path over the same records.
+ * Modern multiplies plain doubles; legacy adds its rate exactly as Money but
+ * also multiplies in double. Only exact, cached and bulk pay
+ * for rounding to micro-units, so compare them with each other rather than
+ * with the double methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CloudBillingBenchmark {
+
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "UNIFORM", "PREMIUM_EU_HEAVY", "STANDARD_OTHER_HEAVY" })
+    BenchmarkData.BillingMix mix;
+
+    private final CloudBillingEngine engine = new CloudBillingEngine();
+    private CloudBillingEngine.Usage[] usages;
+    private UsageBatch batch;
+    private long[] costs;
+    private RateResolutionCache cache;
+
+    @Setup
+    public void setUp() {
+        usages = BenchmarkData.usages(size, mix);
+        batch = new UsageBatch(size);
+        for (CloudBillingEngine.Usage usage : usages) {
+            batch.add(usage);
+        }
+        costs = new long[size];
+        cache = RateResolutionCache.of(engine);
+    }
+
+    @Benchmark
+    public double legacy() {
+        double total = 0.0;
+        for (CloudBillingEngine.Usage usage : usages) {
+            total += engine.calculateCostLegacy(usage);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double modern() {
+        double total = 0.0;
+        for (CloudBillingEngine.Usage usage : usages) {
+            total += engine.calculateCostModern(usage);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long exact() {
+        long total = 0;
+        for (CloudBillingEngine.Usage usage : usages) {
+            total = Math.addExact(total, engine.calculateCostExact(usage).micros());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long cached() {
+        long total = 0;
+        for (CloudBillingEngine.Usage usage : usages) {
+            total = Math.addExact(total, engine.calculateCostCached(usage, cache).micros());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long[] bulk() {
+        engine.rate(batch, costs);
+        return costs;
+    }
+}
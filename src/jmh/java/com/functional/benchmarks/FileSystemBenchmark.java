@@ -0,0 +1,66 @@
+package com.functional.benchmarks;
+
+import com.functional.v17.comparisons.FileSystem;
+import com.functional.v17.comparisons.FileSystemSizeCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculateTotalSizeLegacy vs calculateTotalSizeModern (Java 17 comparison)
+ * over wide, deep and balanced trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g", "-Xss16m" })
+public class FileSystemBenchmark {
+
+    /** Number of files in the tree. */
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "WIDE", "DEEP", "BALANCED" })
+    BenchmarkData.TreeShape shape;
+
+    private FileSystem.Directory modernRoot;
+    private FileSystem.FileNode legacyRoot;
+
+    @Setup
+    public void setUp() {
+        modernRoot = BenchmarkData.modernTree(size, shape);
+        legacyRoot = BenchmarkData.legacyTree(modernRoot);
+    }
+
+    @Benchmark
+    public long legacy() {
+        return FileSystem.calculateTotalSizeLegacy(legacyRoot);
+    }
+
+    @Benchmark
+    public long modern() {
+        return FileSystem.calculateTotalSizeModern(modernRoot);
+    }
+
+    @Benchmark
+    public long iterative() {
+        return FileSystemSizeCalculator.calculateTotalSizeIterative(modernRoot);
+    }
+
+    @Benchmark
+    public long parallel() {
+        return FileSystemSizeCalculator.calculateTotalSizeParallel(modernRoot);
+    }
+}
@@ -0,0 +1,73 @@
+package com.functional.benchmarks;
+
+import com.functional.v17.PaymentResult;
+import com.functional.v17.PaymentSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * processPayment (a String per call) vs charge (a PaymentResult record), with
+ * and without formatting the text afterwards. Run with the GC profiler
+ * (BenchmarkRunner enables it) and compare gc.alloc.rate.norm, the bytes
+ * allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PaymentBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    int size;
+
+    private final PaymentSystem system = new PaymentSystem();
+    private PaymentSystem.PaymentMethod[] methods;
+    private double[] amounts;
+
+    @Setup
+    public void setUp() {
+        methods = BenchmarkData.paymentMethods(size);
+        amounts = BenchmarkData.paymentAmounts(size);
+    }
+
+    @Benchmark
+    public int processPayment() {
+        int length = 0;
+        for (int i = 0; i < methods.length; i++) {
+            length += system.processPayment(methods[i], amounts[i]).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long charge() {
+        long total = 0;
+        for (int i = 0; i < methods.length; i++) {
+            total += system.charge(methods[i], amounts[i]).minorUnits();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int chargeThenFormat() {
+        int length = 0;
+        for (int i = 0; i < methods.length; i++) {
+            PaymentResult result = system.charge(methods[i], amounts[i]);
+            length += result.text().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,62 @@
+package com.functional.benchmarks;
+
+import com.functional.v21.comparisons.CloudBillingEngine;
+import com.functional.v21.comparisons.RateCard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculateCost with a RateCard of 4 to 10k rules, against the hard-coded
+ * calculateCostModern. The time per lookup should stay flat as rules grow,
+ * since a lookup is at most 8 hash probes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RateCardBenchmark {
+
+    @Param({ "4", "100", "1000", "10000" })
+    int rules;
+
+    private final CloudBillingEngine engine = new CloudBillingEngine();
+    private CloudBillingEngine.Usage[] usages;
+    private RateCard card;
+
+    @Setup
+    public void setUp() {
+        usages = BenchmarkData.usages(10_000, BenchmarkData.BillingMix.UNIFORM);
+        card = BenchmarkData.rateCard(rules);
+    }
+
+    @Benchmark
+    public double modern() {
+        double total = 0.0;
+        for (CloudBillingEngine.Usage usage : usages) {
+            total += engine.calculateCostModern(usage);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long rateCard() {
+        long total = 0;
+        for (CloudBillingEngine.Usage usage : usages) {
+            total += engine.calculateCost(usage, card).micros();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,67 @@
+package com.functional.benchmarks;
+
+import com.functional.v8.comparisons.StudentGradingSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findTopStudentsImperative vs findTopStudentsFunctional (Java 8 comparison),
+ * alongside the bounded-heap top-K variants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StudentGradingBenchmark {
+
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "UNIFORM", "SKEWED" })
+    BenchmarkData.DepartmentShape shape;
+
+    @Param({ "10" })
+    int limit;
+
+    private final StudentGradingSystem system = new StudentGradingSystem();
+    private List<StudentGradingSystem.Student> students;
+
+    @Setup
+    public void setUp() {
+        students = BenchmarkData.students(size, shape);
+    }
+
+    @Benchmark
+    public List<StudentGradingSystem.Student> imperative() {
+        return system.findTopStudentsImperative(students, "CS", limit);
+    }
+
+    @Benchmark
+    public List<StudentGradingSystem.Student> functional() {
+        return system.findTopStudentsFunctional(students, "CS", limit);
+    }
+
+    @Benchmark
+    public List<StudentGradingSystem.Student> topK() {
+        return system.findTopStudentsTopK(students, "CS", limit);
+    }
+
+    @Benchmark
+    public List<StudentGradingSystem.Student> topKParallel() {
+        return system.findTopStudentsTopKParallel(students, "CS", limit);
+    }
+}
@@ -0,0 +1,267 @@
+package com.functional.v17;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Batched, asynchronous front end for high volumes of payments.
+ *
+ * Requests are routed by their sealed PaymentMethod variant to one of three
+ * lanes (credit card, PayPal, crypto). Each lane has:
+ * - a bounded queue; submit blocks when it is full, which pushes back on
+ * producers instead of buffering without limit
+ * - a fixed number of virtual-thread workers, bounding how many calls to that
+ * processor can be in flight at once
+ * - a pluggable PaymentProcessor that receives whole batches of one variant,
+ * so a real gateway can use its bulk API
+ *
+ * Workers take the first waiting request and drain whatever else is queued,
+ * up to maxBatchSize, so batches grow naturally under load and stay small
+ * when traffic is light.
+ *
+ * Structured PaymentResults come back as CompletableFutures. If a processor
+ * throws (an Error included), every request in that batch completes
+ * exceptionally with the same error.
+ *
+ * Idle workers block on their queue rather than polling it. close() queues a
+ * shutdown marker behind the pending requests; each worker that meets it
+ * passes it on to the next and exits.
+ */
+public final class BatchPaymentEngine implements AutoCloseable {
+
+    public static final int DEFAULT_CONCURRENCY = 16;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    public record PaymentRequest(PaymentSystem.PaymentMethod method, double amount) {
+        public PaymentRequest {
+            Objects.requireNonNull(method, "method");
+        }
+    }
+
+    /**
+     * Charges a batch of requests that all share the same PaymentMethod
+     * variant.
+     */
+    @FunctionalInterface
+    public interface PaymentProcessor {
+        /**
+         * @return one result per request, in the same order
+         */
+        List<PaymentResult> process(List<PaymentRequest> batch) throws Exception;
+    }
+
+    /**
+     * Configuration of one lane.
+     *
+     * @param concurrency   number of workers, i.e. maximum batches in flight
+     * @param queueCapacity requests that may wait before submit blocks
+     */
+    public record Lane(PaymentProcessor processor, int concurrency, int queueCapacity) {
+        public Lane {
+            Objects.requireNonNull(processor, "processor");
+            if (concurrency < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException(
+                        "concurrency and queueCapacity must be positive: " + concurrency + ", " + queueCapacity);
+            }
+        }
+
+        public static Lane of(PaymentProcessor processor) {
+            return new Lane(processor, DEFAULT_CONCURRENCY, DEFAULT_QUEUE_CAPACITY);
+        }
+    }
+
+    /**
+     * A local processor that charges nothing, delegating to
+     * PaymentSystem.charge. Useful for offline load tests.
+     */
+    public static PaymentProcessor stubProcessor() {
+        return stubProcessor(0);
+    }
+
+    /**
+     * Like {@link #stubProcessor()}, but sleeps per batch to simulate a
+     * gateway round trip.
+     */
+    public static PaymentProcessor stubProcessor(long latencyMillis) {
+        PaymentSystem system = new PaymentSystem();
+        return batch -> {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            List<PaymentResult> results = new ArrayList<>(batch.size());
+            for (PaymentRequest request : batch) {
+                results.add(system.charge(request.method(), request.amount()));
+            }
+            return results;
+        };
+    }
+
+    /**
+     * An engine with the stub processor on every lane.
+     */
+    public static BatchPaymentEngine local() {
+        Lane lane = Lane.of(stubProcessor());
+        return new BatchPaymentEngine(lane, lane, lane, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    private record Pending(PaymentRequest request, CompletableFuture<PaymentResult> result) {
+    }
+
+    /** Queued by close() behind the last request; tells workers to exit. */
+    private static final Pending SHUTDOWN = new Pending(null, null);
+
+    private final LaneRunner cards;
+    private final LaneRunner payPal;
+    private final LaneRunner crypto;
+    private final int maxBatchSize;
+    private volatile boolean closed;
+
+    public BatchPaymentEngine(Lane cards, Lane payPal, Lane crypto, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.cards = new LaneRunner("payments-card-", cards);
+        this.payPal = new LaneRunner("payments-paypal-", payPal);
+        this.crypto = new LaneRunner("payments-crypto-", crypto);
+    }
+
+    /**
+     * Queues one payment, blocking while its lane is full.
+     *
+     * @throws IllegalStateException if the engine is closed
+     */
+    public CompletableFuture<PaymentResult> submit(PaymentSystem.PaymentMethod method, double amount) {
+        return submit(new PaymentRequest(method, amount));
+    }
+
+    public CompletableFuture<PaymentResult> submit(PaymentRequest request) {
+        if (closed) {
+            throw new IllegalStateException("Engine is closed");
+        }
+        LaneRunner lane = switch (request.method()) {
+            case PaymentSystem.CreditCard c -> cards;
+            case PaymentSystem.PayPal p -> payPal;
+            case PaymentSystem.Crypto c -> crypto;
+        };
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        try {
+            lane.queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result().completeExceptionally(e);
+            return pending.result();
+        }
+        // Closed meanwhile: the request may sit behind the shutdown marker. If
+        // no worker has taken it yet, take it back so it cannot be stranded.
+        if (closed && lane.queue.remove(pending)) {
+            pending.result().completeExceptionally(new IllegalStateException("Engine is closed"));
+        }
+        return pending.result();
+    }
+
+    /**
+     * Submits every request in encounter order (blocking under backpressure)
+     * and completes with all results in that order.
+     */
+    public CompletableFuture<List<PaymentResult>> submitAll(Stream<PaymentRequest> requests) {
+        List<CompletableFuture<PaymentResult>> futures = requests.map(this::submit).toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Stops accepting requests, lets the workers finish what is queued, and
+     * waits for them.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            cards.queue.put(SHUTDOWN);
+            payPal.queue.put(SHUTDOWN);
+            crypto.queue.put(SHUTDOWN);
+            cards.join();
+            payPal.join();
+            crypto.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class LaneRunner {
+        private final Lane lane;
+        private final BlockingQueue<Pending> queue;
+        private final List<Thread> workers = new ArrayList<>();
+
+        LaneRunner(String name, Lane lane) {
+            this.lane = lane;
+            this.queue = new ArrayBlockingQueue<>(lane.queueCapacity());
+            for (int i = 0; i < lane.concurrency(); i++) {
+                workers.add(Thread.ofVirtual().name(name + i).start(this::run));
+            }
+        }
+
+        private void run() {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                boolean shutdown = false;
+                while (!shutdown) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    shutdown = batch.remove(SHUTDOWN);
+                    if (!batch.isEmpty()) {
+                        process(batch);
+                        batch.clear();
+                    }
+                }
+                // Pass the marker on to the next worker
+                queue.put(SHUTDOWN);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void process(List<Pending> batch) {
+            List<PaymentRequest> requests = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                requests.add(pending.request());
+            }
+            try {
+                List<PaymentResult> results = lane.processor().process(requests);
+                if (results.size() != batch.size()) {
+                    throw new IllegalStateException(
+                            "Processor returned " + results.size() + " results for " + batch.size() + " requests");
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(results.get(i));
+                }
+            } catch (Throwable t) {
+                // Errors too: a future left incomplete would hang its caller
+                for (Pending pending : batch) {
+                    pending.result().completeExceptionally(t);
+                }
+            }
+        }
+
+        void join() throws InterruptedException {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            // A submit racing with close may have queued after the workers left
+            List<Pending> orphans = new ArrayList<>();
+            queue.drainTo(orphans);
+            for (Pending pending : orphans) {
+                if (pending != SHUTDOWN) {
+                    pending.result().completeExceptionally(new IllegalStateException("Engine is closed"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.functional.v17;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An idempotency layer in front of PaymentSystem.
+ *
+ * Clients retry, so the same logical charge can arrive several times. Each
+ * request carries an idempotency key; together with the PaymentMethod record
+ * (compared with its generated equals/hashCode) it identifies the charge.
+ * - the first request for a key runs the charge and caches the result
+ * - later duplicates get the cached result without charging again
+ * - duplicates arriving while the first is still running wait for it, so
+ * concurrent retries collapse onto a single execution
+ * - a charge that fails is not cached, so the next retry runs it again
+ *
+ * The cache is bounded two ways: entries expire after a TTL, and once it
+ * holds more than maxSize entries the oldest are evicted first. Charges still
+ * in flight are never evicted, since a retry would then charge again; while
+ * more than maxSize are running the cache temporarily exceeds its bound.
+ * Reusing a key
+ * with a different amount is a client bug and fails with
+ * IllegalArgumentException.
+ */
+public final class IdempotentPaymentSystem {
+
+    public record Key(String idempotencyKey, PaymentSystem.PaymentMethod method) {
+        public Key {
+            Objects.requireNonNull(idempotencyKey, "idempotencyKey");
+            Objects.requireNonNull(method, "method");
+        }
+    }
+
+    /**
+     * @param hits      duplicates answered from the cache (including ones that
+     *                  waited for an in-flight charge)
+     * @param misses    charges actually executed
+     * @param evictions entries removed by TTL or by the size bound
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry(Key key, double amount, long createdNanos, CompletableFuture<PaymentResult> result) {
+    }
+
+    private final PaymentSystem system;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotentPaymentSystem(PaymentSystem system, Duration ttl, int maxSize) {
+        this(system, ttl, maxSize, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of monotonic time, replaceable in tests
+     */
+    public IdempotentPaymentSystem(PaymentSystem system, Duration ttl, int maxSize, LongSupplier nanoClock) {
+        if (ttl.isNegative() || ttl.isZero() || maxSize < 1) {
+            throw new IllegalArgumentException("ttl and maxSize must be positive: " + ttl + ", " + maxSize);
+        }
+        this.system = Objects.requireNonNull(system, "system");
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Charges once per (idempotencyKey, method); duplicates return the first
+     * result.
+     */
+    public PaymentResult charge(String idempotencyKey, PaymentSystem.PaymentMethod method, double amount) {
+        Key key = new Key(idempotencyKey, method);
+        while (true) {
+            long now = nanoClock.getAsLong();
+            Entry existing = entries.get(key);
+            if (existing != null && isExpired(existing, now)) {
+                if (entries.remove(key, existing)) {
+                    evictions.increment();
+                }
+                continue;
+            }
+            if (existing != null) {
+                return await(existing, amount);
+            }
+            Entry created = new Entry(key, amount, now, new CompletableFuture<>());
+            if (entries.putIfAbsent(key, created) != null) {
+                // Lost the race to another first request; wait for it instead
+                continue;
+            }
+            misses.increment();
+            insertionOrder.add(created);
+            evictOldest(now);
+            return execute(created, method);
+        }
+    }
+
+    /**
+     * Same as {@link #charge}, returning the status text.
+     */
+    public String processPayment(String idempotencyKey, PaymentSystem.PaymentMethod method, double amount) {
+        return charge(idempotencyKey, method, amount).text();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Drops every expired entry now rather than on next access.
+     */
+    public void purgeExpired() {
+        long now = nanoClock.getAsLong();
+        for (Entry entry : entries.values()) {
+            if (isExpired(entry, now) && entries.remove(entry.key(), entry)) {
+                evictions.increment();
+            }
+        }
+        insertionOrder.removeIf(entry -> entries.get(entry.key()) != entry);
+    }
+
+    private PaymentResult execute(Entry entry, PaymentSystem.PaymentMethod method) {
+        try {
+            PaymentResult result = system.charge(method, entry.amount());
+            entry.result().complete(result);
+            return result;
+        } catch (Throwable t) {
+            // Failures, Errors included, are not remembered: the next retry
+            // charges again, and waiters are released with the same failure
+            entries.remove(entry.key(), entry);
+            entry.result().completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    private PaymentResult await(Entry entry, double amount) {
+        if (Double.compare(entry.amount(), amount) != 0) {
+            throw new IllegalArgumentException("Idempotency key " + entry.key().idempotencyKey()
+                    + " was used for amount " + entry.amount() + ", not " + amount);
+        }
+        hits.increment();
+        try {
+            return entry.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes, oldest first: stale queue slots (entry already gone or
+     * replaced), expired entries, and completed live entries while the cache
+     * is over its bound. In-flight entries are stepped over.
+     */
+    private void evictOldest(long now) {
+        Iterator<Entry> oldestFirst = insertionOrder.iterator();
+        while (oldestFirst.hasNext()) {
+            Entry oldest = oldestFirst.next();
+            boolean live = entries.get(oldest.key()) == oldest;
+            if (live && !isExpired(oldest, now)) {
+                if (entries.size() <= maxSize) {
+                    return;
+                }
+                if (!oldest.result().isDone()) {
+                    continue;
+                }
+            }
+            oldestFirst.remove();
+            if (live && entries.remove(oldest.key(), oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /** In-flight charges never expire, so their waiters cannot be orphaned. */
+    private boolean isExpired(Entry entry, long now) {
+        return entry.result().isDone() && now - entry.createdNanos() >= ttlNanos;
+    }
+}
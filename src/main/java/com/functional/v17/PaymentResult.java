@@ -0,0 +1,98 @@
+package com.functional.v17;
+
+import java.math.BigDecimal;
+
+/**
+ * The structured outcome of a payment, as returned by PaymentSystem.charge.
+ *
+ * processPayment used to build a sentence for every call, which callers then
+ * parsed back apart. A PaymentResult keeps the fields instead:
+ * - the amount as a long in minor units (cents for fiat, 1e-8 for crypto)
+ * - only the last four digits of a card, never the full number
+ * - the target (PayPal email, or wallet and coin)
+ *
+ * Text is produced only when {@link #text()} is called. Amounts are rounded
+ * to the variant's scale, so the text matches processPayment for any amount
+ * with at most that many decimals; processPayment itself still formats the
+ * amount it was given.
+ */
+public sealed interface PaymentResult {
+
+    int FIAT_SCALE = 2;
+    int CRYPTO_SCALE = 8;
+
+    /** The amount in minor units, i.e. amount * 10^scale. */
+    long minorUnits();
+
+    /** Number of decimal places held by {@link #minorUnits()}. */
+    int scale();
+
+    default double amount() {
+        return minorUnits() / (double) pow10(scale());
+    }
+
+    default BigDecimal exactAmount() {
+        return BigDecimal.valueOf(minorUnits(), scale());
+    }
+
+    /** The human-readable status line. */
+    String text();
+
+    record CardCharge(long minorUnits, String lastFour) implements PaymentResult {
+        @Override
+        public int scale() {
+            return FIAT_SCALE;
+        }
+
+        @Override
+        public String text() {
+            return "Charging " + amount() + " to Credit Card ending in " + lastFour;
+        }
+    }
+
+    record PayPalCharge(long minorUnits, String email) implements PaymentResult {
+        @Override
+        public int scale() {
+            return FIAT_SCALE;
+        }
+
+        @Override
+        public String text() {
+            return "Processing PayPal payment for " + amount() + " to " + email;
+        }
+    }
+
+    record CryptoTransfer(long minorUnits, String coinType, String walletAddress) implements PaymentResult {
+        @Override
+        public int scale() {
+            return CRYPTO_SCALE;
+        }
+
+        @Override
+        public String text() {
+            return "Transferring " + amount() + " " + coinType + " to " + walletAddress;
+        }
+    }
+
+    /**
+     * Converts an amount to the nearest whole number of minor units at the
+     * given scale.
+     *
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    static long toMinorUnits(double amount, int scale) {
+        double scaled = amount * pow10(scale);
+        if (!(Math.abs(scaled) < 0x1p63)) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return Math.round(scaled);
+    }
+
+    private static long pow10(int scale) {
+        long result = 1;
+        for (int i = 0; i < scale; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
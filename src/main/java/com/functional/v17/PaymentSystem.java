@@ -51,4 +51,29 @@ public class PaymentSystem {
             // covered!
         };
     }
+
+    /**
+     * Same as processPayment, but returns the structured result and leaves
+     * formatting to whoever actually needs the text.
+     *
+     * Unlike processPayment, the amount is rounded to whole minor units
+     * (cents, or 1e-8 for crypto), so its text can differ for amounts with
+     * more decimals than that.
+     *
+     * @throws ArithmeticException if the amount is NaN, infinite, or too large
+     *                             to count in minor units as a long
+     */
+    public PaymentResult charge(PaymentMethod method, double amount) {
+        return switch (method) {
+            case CreditCard c -> new PaymentResult.CardCharge(
+                    PaymentResult.toMinorUnits(amount, PaymentResult.FIAT_SCALE),
+                    c.cardNumber.substring(c.cardNumber.length() - 4));
+            case PayPal p -> new PaymentResult.PayPalCharge(
+                    PaymentResult.toMinorUnits(amount, PaymentResult.FIAT_SCALE), p.email);
+            case Crypto c -> new PaymentResult.CryptoTransfer(
+                    PaymentResult.toMinorUnits(amount, PaymentResult.CRYPTO_SCALE), c.coinType, c.walletAddress);
+            // No default needed because the interface is sealed and all permits are
+            // covered!
+        };
+    }
 }
@@ -1,5 +1,6 @@
 package com.functional.v17.comparisons;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -83,9 +84,37 @@ public class FileSystem {
     }
 
     public record File(String name, long size) implements Node {
+
+        public File withSize(long newSize) {
+            return new File(name, newSize);
+        }
     }
 
+    /**
+     * Records are immutable, so "changing" a directory means building a new one.
+     * The with* methods below copy only this directory's child list; every
+     * child subtree is shared with the original (path copying).
+     */
     public record Directory(String name, List<Node> children) implements Node {
+
+        public Directory withChild(int index, Node child) {
+            List<Node> copy = new ArrayList<>(children);
+            copy.set(index, child);
+            return new Directory(name, List.copyOf(copy));
+        }
+
+        public Directory withChildAdded(Node child) {
+            List<Node> copy = new ArrayList<>(children.size() + 1);
+            copy.addAll(children);
+            copy.add(child);
+            return new Directory(name, List.copyOf(copy));
+        }
+
+        public Directory withoutChild(int index) {
+            List<Node> copy = new ArrayList<>(children);
+            copy.remove(index);
+            return new Directory(name, List.copyOf(copy));
+        }
     }
 
     /**
@@ -0,0 +1,157 @@
+package com.functional.v17.comparisons;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Builds FileSystem trees from real directories, or sums their sizes directly.
+ *
+ * Each directory is listed with a depth-1 Files.walkFileTree, which hands over
+ * the BasicFileAttributes of every entry as part of the listing, so sizes come
+ * in one batch per directory instead of one stat call per file. Every
+ * subdirectory is then processed on its own virtual thread, while a semaphore
+ * caps how many listings hit the disk at once.
+ *
+ * - load() materializes a FileSystem.Directory, entries sorted by name.
+ * - totalSize() streams the totals up without building any nodes, so it can
+ * scan volumes whose tree would not fit on the heap.
+ *
+ * Symbolic links are not followed; they count as files of the link's own size.
+ * The root itself is the exception: it is resolved first, so a link to a
+ * directory is scanned as that directory (under the link's name).
+ * An unreadable entry fails the whole scan with its IOException.
+ */
+public final class FileSystemLoader {
+
+    public static final int DEFAULT_MAX_CONCURRENT_LISTINGS = 64;
+
+    private final Semaphore listings;
+
+    public FileSystemLoader() {
+        this(DEFAULT_MAX_CONCURRENT_LISTINGS);
+    }
+
+    public FileSystemLoader(int maxConcurrentListings) {
+        if (maxConcurrentListings < 1) {
+            throw new IllegalArgumentException("maxConcurrentListings must be positive: " + maxConcurrentListings);
+        }
+        this.listings = new Semaphore(maxConcurrentListings);
+    }
+
+    /** One directory entry, with the attributes read during the listing. */
+    private record Entry(Path path, boolean directory, long size) {
+    }
+
+    public FileSystem.Directory load(Path root) throws IOException {
+        Path directory = root.toRealPath();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            FileSystem.Directory tree = loadDirectory(directory, executor);
+            return directory.equals(root) ? tree : new FileSystem.Directory(name(root), tree.children());
+        }
+    }
+
+    public long totalSize(Path root) throws IOException {
+        Path directory = root.toRealPath();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return sizeOf(directory, executor);
+        }
+    }
+
+    private FileSystem.Directory loadDirectory(Path dir, ExecutorService executor) throws IOException {
+        List<Entry> entries = list(dir);
+        List<Future<FileSystem.Directory>> subdirectories = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.directory()) {
+                subdirectories.add(executor.submit(() -> loadDirectory(entry.path(), executor)));
+            }
+        }
+        List<FileSystem.Node> children = new ArrayList<>(entries.size());
+        int next = 0;
+        for (Entry entry : entries) {
+            children.add(entry.directory() ? await(subdirectories.get(next++))
+                    : new FileSystem.File(name(entry.path()), entry.size()));
+        }
+        return new FileSystem.Directory(name(dir), List.copyOf(children));
+    }
+
+    private long sizeOf(Path dir, ExecutorService executor) throws IOException {
+        List<Future<Long>> subdirectories = new ArrayList<>();
+        long total = 0;
+        for (Entry entry : list(dir)) {
+            if (entry.directory()) {
+                subdirectories.add(executor.submit(() -> sizeOf(entry.path(), executor)));
+            } else {
+                total += entry.size();
+            }
+        }
+        for (Future<Long> subdirectory : subdirectories) {
+            total += await(subdirectory);
+        }
+        return total;
+    }
+
+    private List<Entry> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new NotDirectoryException(dir.toString());
+        }
+        List<Entry> entries = new ArrayList<>();
+        listings.acquireUninterruptibly();
+        try {
+            Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1,
+                    new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                            // At max depth, subdirectories are reported here too
+                            entries.add(new Entry(file, attrs.isDirectory(), attrs.isDirectory() ? 0 : attrs.size()));
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+        } finally {
+            listings.release();
+        }
+        entries.sort(Comparator.comparing(e -> name(e.path())));
+        return entries;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static String name(Path path) {
+        Path fileName = path.getFileName();
+        return fileName == null ? path.toString() : fileName.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package com.functional.v17.comparisons;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stack-safe and parallel alternatives to FileSystem.calculateTotalSizeModern.
+ *
+ * The recursive versions use one stack frame (several, for the stream-based
+ * one) per directory level, so chains tens of thousands of levels deep
+ * overflow the stack, and they only ever use one core.
+ *
+ * - Iterative: walks the tree with an explicit stack on the heap.
+ * - Parallel: a fork/join CountedCompleter. Each task walks its part of the
+ * tree iteratively. A directory it meets is handed to a new forked task
+ * while this worker has few tasks queued for thieves
+ * (getSurplusQueuedTaskCount), and walked in place otherwise; child lists
+ * longer than {@code splitThreshold} are split in halves. Wide, bushy and
+ * deep trees therefore all spread over the cores. Tasks never join, so a
+ * deep chain of forked directories does not grow the stack either.
+ *
+ * Both return exactly the same total as the recursive methods.
+ */
+public final class FileSystemSizeCalculator {
+
+    public static final int DEFAULT_SPLIT_THRESHOLD = 1024;
+
+    private FileSystemSizeCalculator() {
+    }
+
+    public static long calculateTotalSizeIterative(FileSystem.Node root) {
+        long total = 0;
+        Deque<FileSystem.Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            switch (stack.pop()) {
+                case FileSystem.File f -> total += f.size();
+                case FileSystem.Directory d -> d.children().forEach(stack::push);
+            }
+        }
+        return total;
+    }
+
+    public static long calculateTotalSizeParallel(FileSystem.Node root) {
+        return calculateTotalSizeParallel(root, ForkJoinPool.commonPool(), DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    public static long calculateTotalSizeParallel(FileSystem.Node root, ForkJoinPool pool, int splitThreshold) {
+        if (splitThreshold < 1) {
+            throw new IllegalArgumentException("splitThreshold must be positive: " + splitThreshold);
+        }
+        return pool.invoke(new SizeTask(null, List.of(root), 0, 1, splitThreshold, new LongAdder()));
+    }
+
+    /**
+     * Sums the subtrees rooted at nodes[from, to) into the shared total.
+     */
+    @SuppressWarnings("serial")
+    private static final class SizeTask extends CountedCompleter<Long> {
+        /** Forking stops while this many tasks already wait in the local queue. */
+        private static final int MAX_SURPLUS = 2;
+
+        private final List<FileSystem.Node> nodes;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final LongAdder total;
+
+        SizeTask(SizeTask parent, List<FileSystem.Node> nodes, int from, int to, int threshold, LongAdder total) {
+            super(parent);
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.total = total;
+        }
+
+        @Override
+        public void compute() {
+            int hi = to;
+            while (hi - from > threshold) {
+                int mid = (from + hi) >>> 1;
+                fork(nodes, mid, hi);
+                hi = mid;
+            }
+
+            long sum = 0;
+            Deque<FileSystem.Node> stack = new ArrayDeque<>();
+            for (int i = from; i < hi; i++) {
+                stack.push(nodes.get(i));
+            }
+            while (!stack.isEmpty()) {
+                switch (stack.pop()) {
+                    case FileSystem.File f -> sum += f.size();
+                    case FileSystem.Directory d -> {
+                        List<FileSystem.Node> children = d.children();
+                        if (children.isEmpty()) {
+                            continue;
+                        }
+                        if (children.size() > threshold || getSurplusQueuedTaskCount() < MAX_SURPLUS) {
+                            List<FileSystem.Node> indexed = children instanceof RandomAccess ? children
+                                    : new ArrayList<>(children);
+                            fork(indexed, 0, indexed.size());
+                        } else {
+                            children.forEach(stack::push);
+                        }
+                    }
+                }
+            }
+            total.add(sum);
+            tryComplete();
+        }
+
+        private void fork(List<FileSystem.Node> children, int lo, int hi) {
+            addToPendingCount(1);
+            new SizeTask(this, children, lo, hi, threshold, total).fork();
+        }
+
+        @Override
+        public Long getRawResult() {
+            return total.sum();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.functional.v17.comparisons;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A compact, flattened encoding of a FileSystem tree.
+ *
+ * Every File/Directory record plus its child List costs several objects,
+ * headers and references. Here node {@code i} is just a slot in a few
+ * parallel primitive arrays:
+ * - parent[i], firstChild[i], nextSibling[i] (-1 when absent)
+ * - sizes[i] (file size; 0 for directories) and a directory bit
+ * - its name as UTF-8 bytes in one shared arena, at nameOffsets[i]
+ *
+ * Directories have size 0, so the total size is a plain sum over sizes[].
+ * Nodes are stored in pre-order, so every parent comes before its children;
+ * per-directory totals are then a single reverse sweep: walking from the
+ * last node to the first, add each node's total into its parent's.
+ *
+ * Immutable once built. Conversions in both directions are iterative, so
+ * deep trees are safe.
+ */
+public final class FlatFileSystem {
+
+    private static final int NONE = -1;
+
+    /** Largest byte[] that JVMs reliably allocate. */
+    static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+
+    private final int size;
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final long[] sizes;
+    private final BitSet directories;
+    private final int[] nameOffsets;
+    private final byte[] nameArena;
+
+    private FlatFileSystem(int size, int[] parent, int[] firstChild, int[] nextSibling, long[] sizes,
+            BitSet directories, int[] nameOffsets, byte[] nameArena) {
+        this.size = size;
+        this.parent = parent;
+        this.firstChild = firstChild;
+        this.nextSibling = nextSibling;
+        this.sizes = sizes;
+        this.directories = directories;
+        this.nameOffsets = nameOffsets;
+        this.nameArena = nameArena;
+    }
+
+    private record Pending(FileSystem.Node node, int parent) {
+    }
+
+    public static FlatFileSystem of(FileSystem.Node root) {
+        int capacity = 16;
+        int[] parent = new int[capacity];
+        int[] firstChild = new int[capacity];
+        int[] nextSibling = new int[capacity];
+        int[] lastChild = new int[capacity];
+        long[] sizes = new long[capacity];
+        int[] nameOffsets = new int[capacity + 1];
+        byte[] arena = new byte[capacity * 8];
+        BitSet directories = new BitSet();
+        int count = 0;
+        int arenaSize = 0;
+
+        Deque<Pending> stack = new ArrayDeque<>();
+        stack.push(new Pending(root, NONE));
+        while (!stack.isEmpty()) {
+            Pending pending = stack.pop();
+            if (count == parent.length) {
+                capacity *= 2;
+                parent = Arrays.copyOf(parent, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                nextSibling = Arrays.copyOf(nextSibling, capacity);
+                lastChild = Arrays.copyOf(lastChild, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            }
+            int index = count++;
+            int up = pending.parent();
+            parent[index] = up;
+            firstChild[index] = NONE;
+            nextSibling[index] = NONE;
+            if (up != NONE) {
+                if (firstChild[up] == NONE) {
+                    firstChild[up] = index;
+                } else {
+                    nextSibling[lastChild[up]] = index;
+                }
+                lastChild[up] = index;
+            }
+
+            String name;
+            switch (pending.node()) {
+                case FileSystem.File f -> {
+                    name = f.name();
+                    sizes[index] = f.size();
+                }
+                case FileSystem.Directory d -> {
+                    name = d.name();
+                    directories.set(index);
+                    List<FileSystem.Node> children = d.children();
+                    // Reverse push so the first child is visited first
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.push(new Pending(children.get(i), index));
+                    }
+                }
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (arenaSize + (long) bytes.length > arena.length) {
+                arena = Arrays.copyOf(arena, grownArenaCapacity(arena.length, arenaSize + (long) bytes.length));
+            }
+            System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+            nameOffsets[index] = arenaSize;
+            arenaSize += bytes.length;
+        }
+        nameOffsets[count] = arenaSize;
+
+        return new FlatFileSystem(count,
+                Arrays.copyOf(parent, count),
+                Arrays.copyOf(firstChild, count),
+                Arrays.copyOf(nextSibling, count),
+                Arrays.copyOf(sizes, count),
+                directories,
+                Arrays.copyOf(nameOffsets, count + 1),
+                Arrays.copyOf(arena, arenaSize));
+    }
+
+    /**
+     * Rebuilds the equivalent record tree, children before parents.
+     */
+    public FileSystem.Node toNode() {
+        FileSystem.Node[] built = new FileSystem.Node[size];
+        List<FileSystem.Node> children = new ArrayList<>();
+        for (int i = size - 1; i >= 0; i--) {
+            if (isDirectory(i)) {
+                children.clear();
+                for (int c = firstChild[i]; c != NONE; c = nextSibling[c]) {
+                    children.add(built[c]);
+                    built[c] = null;
+                }
+                built[i] = new FileSystem.Directory(name(i), List.copyOf(children));
+            } else {
+                built[i] = new FileSystem.File(name(i), sizes[i]);
+            }
+        }
+        return built[0];
+    }
+
+    /**
+     * Doubles the arena, computed in long so it cannot overflow, and caps it
+     * at MAX_ARENA_SIZE.
+     *
+     * @throws IllegalArgumentException if the names need more than
+     *                                  MAX_ARENA_SIZE bytes
+     */
+    static int grownArenaCapacity(int current, long required) {
+        if (required > MAX_ARENA_SIZE) {
+            throw new IllegalArgumentException(
+                    "Names need " + required + " bytes, more than the " + MAX_ARENA_SIZE + "-byte arena limit");
+        }
+        return (int) Math.min(MAX_ARENA_SIZE, Math.max(2L * current, required));
+    }
+
+    /**
+     * Same result as FileSystem.calculateTotalSizeModern, as one linear pass
+     * over sizes[] that allocates nothing.
+     */
+    public long calculateTotalSize() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += sizes[i];
+        }
+        return total;
+    }
+
+    /**
+     * @return the total size below every node, indexed like the nodes
+     */
+    public long[] subtreeSizes() {
+        long[] totals = sizes.clone();
+        for (int i = size - 1; i > 0; i--) {
+            totals[parent[i]] += totals[i];
+        }
+        return totals;
+    }
+
+    /** Number of nodes; node 0 is the root. */
+    public int size() {
+        return size;
+    }
+
+    public String name(int node) {
+        return new String(nameArena, nameOffsets[node], nameOffsets[node + 1] - nameOffsets[node],
+                StandardCharsets.UTF_8);
+    }
+
+    public boolean isDirectory(int node) {
+        return directories.get(node);
+    }
+
+    /** File size, or 0 for a directory. */
+    public long fileSize(int node) {
+        return sizes[node];
+    }
+
+    /** Parent index, or -1 for the root. */
+    public int parent(int node) {
+        return parent[node];
+    }
+
+    /** First child index, or -1. */
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    /** Next sibling index, or -1. */
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /**
+     * Approximate heap footprint of the arrays, for comparing against the
+     * record tree.
+     */
+    public long footprintBytes() {
+        return 4L * (parent.length + firstChild.length + nextSibling.length + nameOffsets.length)
+                + 8L * sizes.length + nameArena.length + directories.size() / 8;
+    }
+}
@@ -0,0 +1,236 @@
+package com.functional.v17.comparisons;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A FileSystem tree with every directory's total size cached.
+ *
+ * Built once in O(n); afterwards totalSize() is O(1). The tree is persistent:
+ * an update returns a new MemoizedSizeTree that shares every untouched subtree
+ * with the old one, and re-aggregates only the directories on the path from
+ * the change to the root (new total = old total - old child + new child).
+ * Querying again after a single file changes therefore costs O(depth) in
+ * arithmetic, plus copying the child list of each directory on the path, as
+ * Directory.withChild does.
+ *
+ * Nodes are addressed by index paths: {@code {2, 0}} is the first child of
+ * the root's third child. {@link #pathOf(String...)} resolves names.
+ */
+public final class MemoizedSizeTree {
+
+    /** A node paired with its cached subtree total. */
+    private record Entry(FileSystem.Node node, long totalSize, List<Entry> children) {
+    }
+
+    private final Entry root;
+
+    private MemoizedSizeTree(Entry root) {
+        this.root = root;
+    }
+
+    public static MemoizedSizeTree of(FileSystem.Node root) {
+        return new MemoizedSizeTree(build(root));
+    }
+
+    /**
+     * Builds entries bottom-up with an explicit stack, so deep trees do not
+     * overflow.
+     */
+    private static Entry build(FileSystem.Node root) {
+        Deque<FileSystem.Node> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Deque<Entry> built = new ArrayDeque<>();
+        pending.push(root);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            FileSystem.Node node = pending.pop();
+            boolean childrenBuilt = expanded.pop();
+            switch (node) {
+                case FileSystem.File f -> built.push(new Entry(f, f.size(), List.of()));
+                case FileSystem.Directory d when childrenBuilt -> {
+                    int count = d.children().size();
+                    Entry[] children = new Entry[count];
+                    long total = 0;
+                    for (int i = 0; i < count; i++) {
+                        children[i] = built.pop();
+                        total += children[i].totalSize();
+                    }
+                    built.push(new Entry(d, total, List.of(children)));
+                }
+                case FileSystem.Directory d -> {
+                    pending.push(d);
+                    expanded.push(true);
+                    // Pushed first to last, so built pops them back first to last
+                    for (FileSystem.Node child : d.children()) {
+                        pending.push(child);
+                        expanded.push(false);
+                    }
+                }
+            }
+        }
+        return built.pop();
+    }
+
+    public FileSystem.Node root() {
+        return root.node();
+    }
+
+    public long totalSize() {
+        return root.totalSize();
+    }
+
+    /**
+     * @return the cached total of the subtree at the given path
+     */
+    public long sizeAt(int... path) {
+        return entryAt(path).totalSize();
+    }
+
+    public FileSystem.Node nodeAt(int... path) {
+        return entryAt(path).node();
+    }
+
+    /**
+     * Resolves a path of names, starting below the root, into an index path.
+     *
+     * @throws IllegalArgumentException if a name is not found
+     */
+    public int[] pathOf(String... names) {
+        int[] path = new int[names.length];
+        Entry current = root;
+        for (int depth = 0; depth < names.length; depth++) {
+            int index = -1;
+            List<Entry> children = current.children();
+            for (int i = 0; i < children.size(); i++) {
+                if (name(children.get(i).node()).equals(names[depth])) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException("No such entry: " + String.join("/", names));
+            }
+            path[depth] = index;
+            current = children.get(index);
+        }
+        return path;
+    }
+
+    /**
+     * Replaces the node at a path (the whole tree, for an empty path).
+     */
+    public MemoizedSizeTree replace(int[] path, FileSystem.Node replacement) {
+        if (path.length == 0) {
+            return of(replacement);
+        }
+        Entry[] ancestors = ancestors(path);
+        return rebuild(ancestors, path, path.length - 1, build(replacement));
+    }
+
+    /**
+     * Changes the size of the file at a path.
+     *
+     * @throws IllegalArgumentException if the path does not lead to a file
+     */
+    public MemoizedSizeTree updateFileSize(int[] path, long newSize) {
+        if (!(nodeAt(path) instanceof FileSystem.File file)) {
+            throw new IllegalArgumentException("Not a file: " + Arrays.toString(path));
+        }
+        return replace(path, file.withSize(newSize));
+    }
+
+    /**
+     * Appends a child to the directory at a path.
+     */
+    public MemoizedSizeTree addChild(int[] directoryPath, FileSystem.Node child) {
+        Entry[] ancestors = ancestors(directoryPath);
+        Entry parent = directoryPath.length == 0 ? root : entryAt(directoryPath);
+        Entry added = build(child);
+        List<Entry> children = new ArrayList<>(parent.children().size() + 1);
+        children.addAll(parent.children());
+        children.add(added);
+        Entry updated = new Entry(directory(parent).withChildAdded(child), parent.totalSize() + added.totalSize(),
+                List.copyOf(children));
+        return directoryPath.length == 0 ? new MemoizedSizeTree(updated)
+                : rebuild(ancestors, directoryPath, directoryPath.length - 1, updated);
+    }
+
+    /**
+     * Removes the node at a (non-empty) path.
+     */
+    public MemoizedSizeTree remove(int[] path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Cannot remove the root");
+        }
+        Entry[] ancestors = ancestors(path);
+        Entry parent = ancestors[path.length - 1];
+        int index = path[path.length - 1];
+        List<Entry> children = new ArrayList<>(parent.children());
+        Entry removed = children.remove(index);
+        Entry updated = new Entry(directory(parent).withoutChild(index), parent.totalSize() - removed.totalSize(),
+                List.copyOf(children));
+        int[] parentPath = Arrays.copyOf(path, path.length - 1);
+        return parentPath.length == 0 ? new MemoizedSizeTree(updated)
+                : rebuild(ancestors, parentPath, parentPath.length - 1, updated);
+    }
+
+    /**
+     * Installs {@code replacement} at path[0..depth] and re-aggregates every
+     * ancestor above it, copying only the directories on the path.
+     */
+    private MemoizedSizeTree rebuild(Entry[] ancestors, int[] path, int depth, Entry replacement) {
+        Entry child = replacement;
+        for (int level = depth; level >= 0; level--) {
+            Entry parent = ancestors[level];
+            int index = path[level];
+            Entry old = parent.children().get(index);
+            List<Entry> children = new ArrayList<>(parent.children());
+            children.set(index, child);
+            child = new Entry(directory(parent).withChild(index, child.node()),
+                    parent.totalSize() - old.totalSize() + child.totalSize(), List.copyOf(children));
+        }
+        return new MemoizedSizeTree(child);
+    }
+
+    /** ancestors[i] is the directory holding path[i]. */
+    private Entry[] ancestors(int[] path) {
+        Entry[] ancestors = new Entry[path.length];
+        Entry current = root;
+        for (int depth = 0; depth < path.length; depth++) {
+            ancestors[depth] = current;
+            current = child(current, path[depth]);
+        }
+        return ancestors;
+    }
+
+    private Entry entryAt(int[] path) {
+        Entry current = root;
+        for (int index : path) {
+            current = child(current, index);
+        }
+        return current;
+    }
+
+    private static Entry child(Entry entry, int index) {
+        directory(entry);
+        return entry.children().get(index);
+    }
+
+    private static FileSystem.Directory directory(Entry entry) {
+        if (entry.node() instanceof FileSystem.Directory d) {
+            return d;
+        }
+        throw new IllegalArgumentException("Not a directory: " + name(entry.node()));
+    }
+
+    private static String name(FileSystem.Node node) {
+        return switch (node) {
+            case FileSystem.File f -> f.name();
+            case FileSystem.Directory d -> d.name();
+        };
+    }
+}
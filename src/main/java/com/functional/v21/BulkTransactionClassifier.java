@@ -0,0 +1,127 @@
+package com.functional.v21;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Classifies millions of transactions in one parallel pass.
+ *
+ * analyzeTransaction answers one record at a time with a formatted string,
+ * which callers then had to parse to find out what happened. Here each record
+ * gets a TransactionCategory from a compiled RuleEngine, and the same pass
+ * aggregates per-category counts and amount sums.
+ *
+ * Worker threads all update the same few counters, so each category uses a
+ * LongAdder and a DoubleAdder, which stripe updates across cells instead of
+ * contending on one value. Messages are only built when
+ * {@link Classification#message(int)} is called.
+ */
+public final class BulkTransactionClassifier {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+
+    private final RuleEngine engine;
+
+    public BulkTransactionClassifier() {
+        this(RuleEngine.defaults());
+    }
+
+    public BulkTransactionClassifier(RuleEngine engine) {
+        this.engine = engine;
+    }
+
+    public Classification classify(List<TransactionMatcher.Transaction> transactions) {
+        List<TransactionMatcher.Transaction> records = List.copyOf(transactions);
+        TransactionCategory[] categories = new TransactionCategory[records.size()];
+        LongAdder[] counts = new LongAdder[CATEGORIES.length];
+        DoubleAdder[] sums = new DoubleAdder[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            counts[i] = new LongAdder();
+            sums[i] = new DoubleAdder();
+        }
+        IntStream.range(0, records.size()).parallel().forEach(i -> {
+            TransactionMatcher.Transaction transaction = records.get(i);
+            TransactionCategory category = engine.classify(transaction);
+            categories[i] = category;
+            counts[category.ordinal()].increment();
+            sums[category.ordinal()].add(transaction.amount());
+        });
+
+        long[] countTotals = new long[CATEGORIES.length];
+        double[] sumTotals = new double[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            countTotals[i] = counts[i].sum();
+            sumTotals[i] = sums[i].sum();
+        }
+        return new Classification(records, categories, countTotals, sumTotals);
+    }
+
+    /**
+     * The category of every record, plus per-category totals. Sums are added
+     * in whatever order the threads ran, so they may differ from a sequential
+     * sum in the last bits.
+     */
+    public static final class Classification {
+        private final List<TransactionMatcher.Transaction> transactions;
+        private final TransactionCategory[] categories;
+        private final long[] counts;
+        private final double[] sums;
+
+        private Classification(List<TransactionMatcher.Transaction> transactions, TransactionCategory[] categories,
+                long[] counts, double[] sums) {
+            this.transactions = transactions;
+            this.categories = categories;
+            this.counts = counts;
+            this.sums = sums;
+        }
+
+        public int size() {
+            return categories.length;
+        }
+
+        public TransactionCategory category(int index) {
+            return categories[index];
+        }
+
+        /**
+         * The text analyzeTransaction would have returned for this record.
+         */
+        public String message(int index) {
+            return categories[index].describe(transactions.get(index));
+        }
+
+        public long count(TransactionCategory category) {
+            return counts[category.ordinal()];
+        }
+
+        public double sum(TransactionCategory category) {
+            return sums[category.ordinal()];
+        }
+
+        public Map<TransactionCategory, Long> counts() {
+            Map<TransactionCategory, Long> result = new EnumMap<>(TransactionCategory.class);
+            for (TransactionCategory category : CATEGORIES) {
+                result.put(category, counts[category.ordinal()]);
+            }
+            return result;
+        }
+
+        /** Positions of the records in the given category, in input order. */
+        public int[] indexesOf(TransactionCategory category) {
+            return IntStream.range(0, categories.length).filter(i -> categories[i] == category).toArray();
+        }
+
+        public List<TransactionMatcher.Transaction> transactionsIn(TransactionCategory category) {
+            List<TransactionMatcher.Transaction> result = new ArrayList<>();
+            for (int i : indexesOf(category)) {
+                result.add(transactions.get(i));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.functional.v21;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * A streaming fraud/blocking pipeline built from the TransactionMatcher rules.
+ *
+ * analyzeTransaction's minor-blocking and high-value-US cases are fraud rules
+ * that only run one call at a time. This pipeline runs them over a continuous
+ * feed, in four stages:
+ * - ingest: parse "name,age,city,country,amount" lines into Transactions
+ * - classify: categorize with the compiled RuleEngine (same rules as the
+ * switch)
+ * - enrich: attach the analyzeTransaction text, then apply a user hook
+ * - sink: hand each batch to every sink (alerting, storage, ...)
+ *
+ * Records travel in batches through bounded queues, so a slow stage pushes
+ * back on the ones before it instead of buffering without limit. Classify and
+ * enrich run on several virtual threads each; sinks run on a single thread so
+ * they need not be thread-safe, and see batches in arrival order per thread.
+ *
+ * Each stage records how long it spends per batch in a LatencyHistogram, and
+ * the sink stage also records every record's end-to-end latency.
+ *
+ * Malformed lines are skipped and counted. A batch whose stage throws is
+ * dropped and counted; the first such exception is kept for inspection. An
+ * Error is counted the same way so the run still drains, and is then
+ * rethrown by run or serve.
+ */
+public final class FraudPipeline {
+
+    public static final String INGEST = "ingest";
+    public static final String CLASSIFY = "classify";
+    public static final String ENRICH = "enrich";
+    public static final String SINK = "sink";
+    public static final String END_TO_END = "end-to-end";
+
+    /**
+     * @param batchSize       records per batch; partial batches are flushed
+     *                        whenever the source has nothing more buffered
+     * @param queueCapacity   batches that may wait between two stages
+     * @param workersPerStage virtual threads for classify and for enrich
+     */
+    public record Config(int batchSize, int queueCapacity, int workersPerStage) {
+        public Config {
+            if (batchSize < 1 || queueCapacity < 1 || workersPerStage < 1) {
+                throw new IllegalArgumentException("Pipeline settings must be positive: " + batchSize + ", "
+                        + queueCapacity + ", " + workersPerStage);
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(512, 64, 4);
+        }
+    }
+
+    /**
+     * A classified transaction. The message is filled in by the enrich stage.
+     */
+    public record Decision(TransactionMatcher.Transaction transaction, TransactionCategory category, String message,
+            long ingestNanos) {
+
+        /** Whether one of the fraud rules fired. */
+        public boolean flagged() {
+            return category == TransactionCategory.BLOCKED_MINOR || category == TransactionCategory.HIGH_VALUE_US;
+        }
+
+        public Decision withMessage(String message) {
+            return new Decision(transaction, category, message, ingestNanos);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(List<Decision> batch) throws Exception;
+    }
+
+    public record Stats(long ingested, long malformed, long delivered, long failedBatches) {
+    }
+
+    private record Ingested(TransactionMatcher.Transaction transaction, long ingestNanos) {
+    }
+
+    @FunctionalInterface
+    private interface BatchWork<I, O> {
+        List<O> apply(List<I> batch) throws Exception;
+    }
+
+    /** Marks the end of the input; compared by identity. */
+    private static final List<Object> END = new ArrayList<>(0);
+
+    private final Config config;
+    private final RuleEngine engine;
+    private final UnaryOperator<Decision> enricher;
+    private final List<Sink> sinks;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final LongAdder ingested = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final AtomicReference<Exception> firstFailure = new AtomicReference<>();
+    private final AtomicReference<Error> fatalError = new AtomicReference<>();
+
+    public FraudPipeline(List<Sink> sinks) {
+        this(Config.defaults(), RuleEngine.defaults(), UnaryOperator.identity(), sinks);
+    }
+
+    /**
+     * @param enricher applied to every decision after its message is set
+     */
+    public FraudPipeline(Config config, RuleEngine engine, UnaryOperator<Decision> enricher, List<Sink> sinks) {
+        this.config = config;
+        this.engine = engine;
+        this.enricher = enricher;
+        this.sinks = List.copyOf(sinks);
+        for (String stage : List.of(INGEST, CLASSIFY, ENRICH, SINK, END_TO_END)) {
+            latencies.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Processes every line of the reader, returning once all of them have
+     * reached the sinks.
+     *
+     * @throws Error the first Error thrown by a stage, once the input has
+     *               drained
+     */
+    public void run(Reader input) throws IOException, InterruptedException {
+        execute(queue -> ingest(toBuffered(input), queue));
+    }
+
+    public void runFile(Path file) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            run(reader);
+        }
+    }
+
+    /**
+     * Runs as a service: accepts connections until the server socket is
+     * closed, ingesting each connection's lines on its own virtual thread.
+     * Returns once the socket is closed and every connection has been
+     * drained.
+     */
+    public void serve(ServerSocket server) throws IOException, InterruptedException {
+        execute(queue -> {
+            try (ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor()) {
+                while (true) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (SocketException e) {
+                        if (server.isClosed()) {
+                            break;
+                        }
+                        throw e;
+                    }
+                    connections.submit(() -> {
+                        try (socket; BufferedReader reader = new BufferedReader(
+                                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                            ingest(reader, queue);
+                        }
+                        return null;
+                    });
+                }
+            }
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(ingested.sum(), malformed.sum(), delivered.sum(), failedBatches.sum());
+    }
+
+    /**
+     * Per-stage latency histograms, keyed by stage name in pipeline order.
+     */
+    public Map<String, LatencyHistogram> latencies() {
+        return latencies;
+    }
+
+    public Optional<Exception> firstFailure() {
+        return Optional.ofNullable(firstFailure.get());
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        void feed(BlockingQueue<List<Ingested>> queue) throws IOException, InterruptedException;
+    }
+
+    private void execute(Source source) throws IOException, InterruptedException {
+        BlockingQueue<List<Ingested>> ingestedQueue = new ArrayBlockingQueue<>(config.queueCapacity());
+        BlockingQueue<List<Decision>> classifiedQueue = new ArrayBlockingQueue<>(config.queueCapacity());
+        BlockingQueue<List<Decision>> enrichedQueue = new ArrayBlockingQueue<>(config.queueCapacity());
+        List<Thread> workers = new ArrayList<>();
+        startStage(CLASSIFY, config.workersPerStage(), ingestedQueue, classifiedQueue, this::classify, workers);
+        startStage(ENRICH, config.workersPerStage(), classifiedQueue, enrichedQueue, this::enrich, workers);
+        startStage(SINK, 1, enrichedQueue, null, this::deliver, workers);
+        try {
+            source.feed(ingestedQueue);
+        } finally {
+            ingestedQueue.put(end());
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        Error fatal = fatalError.getAndSet(null);
+        if (fatal != null) {
+            throw fatal;
+        }
+    }
+
+    private void ingest(BufferedReader reader, BlockingQueue<List<Ingested>> queue)
+            throws IOException, InterruptedException {
+        LatencyHistogram histogram = latencies.get(INGEST);
+        List<Ingested> batch = new ArrayList<>(config.batchSize());
+        long parseNanos = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            long start = System.nanoTime();
+            TransactionMatcher.Transaction transaction = parse(line);
+            long end = System.nanoTime();
+            parseNanos += end - start;
+            if (transaction == null) {
+                malformed.increment();
+            } else {
+                batch.add(new Ingested(transaction, end));
+            }
+            if (batch.size() == config.batchSize() || (!batch.isEmpty() && !reader.ready())) {
+                histogram.record(parseNanos);
+                ingested.add(batch.size());
+                queue.put(batch);
+                batch = new ArrayList<>(config.batchSize());
+                parseNanos = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            histogram.record(parseNanos);
+            ingested.add(batch.size());
+            queue.put(batch);
+        }
+    }
+
+    /**
+     * @return the transaction, or null if the line is malformed
+     */
+    static TransactionMatcher.Transaction parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 5) {
+            return null;
+        }
+        try {
+            int age = Integer.parseInt(fields[1].trim());
+            double amount = Double.parseDouble(fields[4].trim());
+            return new TransactionMatcher.Transaction(new TransactionMatcher.Metadata(
+                    new TransactionMatcher.User(fields[0].trim(), age),
+                    new TransactionMatcher.Location(fields[2].trim(), fields[3].trim())), amount);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Decision> classify(List<Ingested> batch) {
+        List<Decision> decisions = new ArrayList<>(batch.size());
+        for (Ingested record : batch) {
+            decisions.add(new Decision(record.transaction(), engine.classify(record.transaction()), null,
+                    record.ingestNanos()));
+        }
+        return decisions;
+    }
+
+    private List<Decision> enrich(List<Decision> batch) {
+        List<Decision> enriched = new ArrayList<>(batch.size());
+        for (Decision decision : batch) {
+            enriched.add(enricher.apply(decision.withMessage(decision.category().describe(decision.transaction()))));
+        }
+        return enriched;
+    }
+
+    private List<Void> deliver(List<Decision> batch) throws Exception {
+        for (Sink sink : sinks) {
+            sink.accept(batch);
+        }
+        long now = System.nanoTime();
+        LatencyHistogram endToEnd = latencies.get(END_TO_END);
+        for (Decision decision : batch) {
+            endToEnd.record(now - decision.ingestNanos());
+        }
+        delivered.add(batch.size());
+        return List.of();
+    }
+
+    /**
+     * Starts the workers of one stage. Each worker passes the end marker back
+     * to its siblings, and the last one to stop forwards it downstream, even
+     * if it stops abnormally, so the stages after it always terminate.
+     */
+    private <I, O> void startStage(String name, int count, BlockingQueue<List<I>> in, BlockingQueue<List<O>> out,
+            BatchWork<I, O> work, List<Thread> workers) {
+        LatencyHistogram histogram = latencies.get(name);
+        AtomicInteger running = new AtomicInteger(count);
+        for (int i = 0; i < count; i++) {
+            workers.add(Thread.ofVirtual().name("fraud-" + name + "-" + i).start(() -> {
+                try {
+                    while (true) {
+                        List<I> batch = in.take();
+                        if (batch == END) {
+                            in.put(batch);
+                            break;
+                        }
+                        long start = System.nanoTime();
+                        List<O> result;
+                        try {
+                            result = work.apply(batch);
+                        } catch (Exception e) {
+                            failedBatches.increment();
+                            firstFailure.compareAndSet(null, e);
+                            continue;
+                        } catch (Error e) {
+                            failedBatches.increment();
+                            fatalError.compareAndSet(null, e);
+                            continue;
+                        }
+                        histogram.record(System.nanoTime() - start);
+                        if (out != null && !result.isEmpty()) {
+                            out.put(result);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (running.decrementAndGet() == 0 && out != null) {
+                        forwardEnd(out);
+                    }
+                }
+            }));
+        }
+    }
+
+    /** Puts the end marker even if this thread has been interrupted. */
+    private static <T> void forwardEnd(BlockingQueue<List<T>> out) {
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                out.put(end());
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> end() {
+        return (List<T>) (List<?>) END;
+    }
+
+    private static BufferedReader toBuffered(Reader reader) {
+        return reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+}
@@ -0,0 +1,178 @@
+package com.functional.v21;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A compiled decision table for classifying transactions.
+ *
+ * analyzeTransaction hard-codes its rules as switch cases, re-comparing the
+ * country string in each guard. Here the rules are data: an ordered list of
+ * Rule(category, country, amountAbove, ageBelow), where the first matching
+ * rule wins, just like switch cases.
+ *
+ * Compiling the list:
+ * - interns every country named by a rule to an int id
+ * - builds one bucket per country holding, in order, only the rules that can
+ * apply to it (its own rules plus the any-country ones), and one more bucket
+ * of any-country rules for all other countries
+ * - stores thresholds and categories in parallel primitive arrays
+ *
+ * Classifying is then one map lookup for the country and a short loop of
+ * primitive comparisons. The last rule must match everything, so every
+ * transaction gets a category.
+ *
+ * Transactions must have non-null metadata, user and location.
+ */
+public final class RuleEngine {
+
+    /** Country id of countries no rule names. */
+    public static final int OTHER_COUNTRY = -1;
+
+    /**
+     * One row of the table.
+     *
+     * @param country     exact country to match, or {@link #ANY_COUNTRY}
+     * @param amountAbove matches amounts strictly greater, or {@link #ANY_AMOUNT}
+     * @param ageBelow    matches ages strictly lower, or {@link #ANY_AGE}
+     */
+    public record Rule(TransactionCategory category, String country, double amountAbove, int ageBelow) {
+        public static final String ANY_COUNTRY = null;
+        public static final double ANY_AMOUNT = Double.NEGATIVE_INFINITY;
+        public static final int ANY_AGE = Integer.MAX_VALUE;
+
+        public Rule {
+            Objects.requireNonNull(category, "category");
+            if (Double.isNaN(amountAbove)) {
+                throw new IllegalArgumentException("amountAbove must be a number");
+            }
+        }
+
+        /** A catch-all rule. */
+        public static Rule always(TransactionCategory category) {
+            return new Rule(category, ANY_COUNTRY, ANY_AMOUNT, ANY_AGE);
+        }
+
+        boolean matchesEverything() {
+            return country == null && amountAbove == ANY_AMOUNT && ageBelow == ANY_AGE;
+        }
+    }
+
+    /**
+     * The rules of TransactionMatcher.analyzeTransaction, in the same order.
+     */
+    public static List<Rule> defaultRules() {
+        return List.of(
+                new Rule(TransactionCategory.HIGH_VALUE_US, "US", 1000, Rule.ANY_AGE),
+                new Rule(TransactionCategory.STANDARD_US, "US", Rule.ANY_AMOUNT, Rule.ANY_AGE),
+                new Rule(TransactionCategory.BLOCKED_MINOR, Rule.ANY_COUNTRY, Rule.ANY_AMOUNT, 18),
+                Rule.always(TransactionCategory.INTERNATIONAL));
+    }
+
+    public static RuleEngine defaults() {
+        return compile(defaultRules());
+    }
+
+    private final List<Rule> rules;
+    private final Map<String, Integer> countryIds;
+    private final int[][] buckets;
+    private final int[] otherBucket;
+    private final double[] amountAbove;
+    private final int[] ageBelow;
+    private final TransactionCategory[] categories;
+
+    private RuleEngine(List<Rule> rules, Map<String, Integer> countryIds, int[][] buckets, int[] otherBucket) {
+        this.rules = rules;
+        this.countryIds = countryIds;
+        this.buckets = buckets;
+        this.otherBucket = otherBucket;
+        this.amountAbove = new double[rules.size()];
+        this.ageBelow = new int[rules.size()];
+        this.categories = new TransactionCategory[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            amountAbove[i] = rules.get(i).amountAbove();
+            ageBelow[i] = rules.get(i).ageBelow();
+            categories[i] = rules.get(i).category();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the last rule is not a catch-all
+     */
+    public static RuleEngine compile(List<Rule> rules) {
+        List<Rule> copy = List.copyOf(rules);
+        if (copy.isEmpty() || !copy.get(copy.size() - 1).matchesEverything()) {
+            throw new IllegalArgumentException("The last rule must match every transaction");
+        }
+        Map<String, Integer> countryIds = new HashMap<>();
+        for (Rule rule : copy) {
+            if (rule.country() != null) {
+                countryIds.putIfAbsent(rule.country(), countryIds.size());
+            }
+        }
+        int[][] buckets = new int[countryIds.size()][];
+        for (Map.Entry<String, Integer> country : countryIds.entrySet()) {
+            buckets[country.getValue()] = bucket(copy, country.getKey());
+        }
+        return new RuleEngine(copy, Map.copyOf(countryIds), buckets, bucket(copy, null));
+    }
+
+    /** Indexes of the rules that can apply to the country, in order. */
+    private static int[] bucket(List<Rule> rules, String country) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            String ruleCountry = rules.get(i).country();
+            if (ruleCountry == null || ruleCountry.equals(country)) {
+                indexes.add(i);
+                if (rules.get(i).matchesEverything()) {
+                    // Nothing after a catch-all can be reached
+                    break;
+                }
+            }
+        }
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public List<Rule> rules() {
+        return rules;
+    }
+
+    /**
+     * @return the interned id of the country, or {@link #OTHER_COUNTRY} if no
+     *         rule names it
+     */
+    public int countryId(String country) {
+        Integer id = country == null ? null : countryIds.get(country);
+        return id == null ? OTHER_COUNTRY : id;
+    }
+
+    public TransactionCategory classify(TransactionMatcher.Transaction transaction) {
+        TransactionMatcher.Metadata metadata = transaction.metadata();
+        return classify(countryId(metadata.location().country()), transaction.amount(), metadata.user().age());
+    }
+
+    /**
+     * Classifies already-extracted fields, for callers that intern countries
+     * once up front.
+     */
+    public TransactionCategory classify(int countryId, double amount, int age) {
+        int[] bucket = countryId == OTHER_COUNTRY ? otherBucket : buckets[countryId];
+        for (int rule : bucket) {
+            if ((amountAbove[rule] == Rule.ANY_AMOUNT || amount > amountAbove[rule])
+                    && (ageBelow[rule] == Rule.ANY_AGE || age < ageBelow[rule])) {
+                return categories[rule];
+            }
+        }
+        throw new AssertionError("Catch-all rule did not match");
+    }
+
+    /**
+     * Same text as TransactionMatcher.analyzeTransaction for the default rules.
+     */
+    public String analyze(TransactionMatcher.Transaction transaction) {
+        return classify(transaction).describe(transaction);
+    }
+}
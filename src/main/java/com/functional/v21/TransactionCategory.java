@@ -0,0 +1,39 @@
+package com.functional.v21;
+
+/**
+ * The outcomes of TransactionMatcher.analyzeTransaction, as values.
+ *
+ * Rules produce a category rather than a message, so classifying a
+ * transaction allocates nothing; {@link #describe} builds the exact text
+ * analyzeTransaction returns, only when it is needed.
+ */
+public enum TransactionCategory {
+    HIGH_VALUE_US {
+        @Override
+        public String describe(TransactionMatcher.Transaction t) {
+            return "High-value US transaction from " + t.metadata().location().city() + " by " + t.metadata().user().name();
+        }
+    },
+    STANDARD_US {
+        @Override
+        public String describe(TransactionMatcher.Transaction t) {
+            return "Standard US transaction from " + t.metadata().location().city() + " by " + t.metadata().user().name();
+        }
+    },
+    BLOCKED_MINOR {
+        @Override
+        public String describe(TransactionMatcher.Transaction t) {
+            return "Blocked: Minor " + t.metadata().user().name() + " attempted transaction from "
+                    + t.metadata().location().country();
+        }
+    },
+    INTERNATIONAL {
+        @Override
+        public String describe(TransactionMatcher.Transaction t) {
+            return "International transaction from " + t.metadata().location().country() + " by "
+                    + t.metadata().user().name();
+        }
+    };
+
+    public abstract String describe(TransactionMatcher.Transaction transaction);
+}
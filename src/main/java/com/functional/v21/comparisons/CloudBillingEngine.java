@@ -1,5 +1,7 @@
 package com.functional.v21.comparisons;
 
+import java.util.stream.LongStream;
+
 /**
  * JEP 440: Record Patterns & JEP 441: Pattern Matching for switch (Java 21)
  *
@@ -19,6 +21,13 @@ public class CloudBillingEngine {
     public record Usage(Resource resource, double quantity) {
     }
 
+    // --- RATES (exact, see Money) ---
+    static final Money STANDARD_RATE = Money.parse("0.10");
+    static final Money PREMIUM_RATE = Money.parse("0.20");
+    static final Money EU_SURCHARGE = Money.parse("0.05");
+    static final Money PREMIUM_EU_RATE = PREMIUM_RATE.plus(EU_SURCHARGE);
+    static final Money STANDARD_EU_RATE = STANDARD_RATE.plus(EU_SURCHARGE);
+
     // --- LEGACY APPROACH: Getter Hell ---
     /**
      * Calculates cost using imperative logic.
@@ -36,18 +45,19 @@ public class CloudBillingEngine {
         if (id == null)
             return 0.0;
 
-        double baseRate = 0.10; // Default per unit
+        Money baseRate = STANDARD_RATE; // Default per unit
 
         // Complex conditional logic
         if ("PREMIUM".equals(id.tier())) {
-            baseRate = 0.20;
+            baseRate = PREMIUM_RATE;
         }
 
         if ("EU".equals(id.region())) {
-            baseRate += 0.05; // VAT-like tax
+            // VAT-like tax; added exactly, as 0.10 + 0.05 in double is 0.15000000000000002
+            baseRate = baseRate.plus(EU_SURCHARGE);
         }
 
-        return usage.quantity() * baseRate;
+        return usage.quantity() * baseRate.toDouble();
     }
 
     // --- MODERN APPROACH: Data-Oriented Programming ---
@@ -77,4 +87,128 @@ public class CloudBillingEngine {
             case null -> 0.0;
         };
     }
+
+    // --- EXACT APPROACH: Money ---
+    /**
+     * The modern rules in exact arithmetic: rates are Money, and each cost is
+     * rounded half-even to a micro-unit. For ordinary quantities this is the
+     * double returned by calculateCostModern, rounded to a micro-unit.
+     *
+     * Unlike the double methods, which pass NaN and infinities through, a
+     * cost must be a finite number of micro-units.
+     *
+     * @throws ArithmeticException if the quantity is NaN or infinite, or the
+     *                             cost does not fit in a long of micro-units
+     *                             (above about 9.2e12 units)
+     */
+    public Money calculateCostExact(Usage usage) {
+        return switch (usage) {
+            // Case 1: Premium user in EU -> 0.20 + 0.05 = 0.25
+            case Usage(Resource(var type, Identity(var region, var tier)), var qty) when "EU".equals(region)
+                    && "PREMIUM".equals(tier) ->
+                PREMIUM_EU_RATE.times(qty);
+
+            // Case 2: Premium user elsewhere -> 0.20
+            case Usage(Resource(var type, Identity(var region, var tier)), var qty) when "PREMIUM".equals(tier) ->
+                PREMIUM_RATE.times(qty);
+
+            // Case 3: Standard user in EU -> 0.10 + 0.05 = 0.15
+            case Usage(Resource(var type, Identity(var region, var tier)), var qty) when "EU".equals(region) ->
+                STANDARD_EU_RATE.times(qty);
+
+            // Case 4: Default -> 0.10
+            case Usage(Resource(var type, Identity(var region, var tier)), var qty) ->
+                STANDARD_RATE.times(qty);
+
+            case null -> Money.ZERO;
+        };
+    }
+
+    // --- DATA-DRIVEN APPROACH: Rate card ---
+    /**
+     * Same shape as calculateCostExact, but the rate comes from a RateCard,
+     * so pricing changes are a file edit rather than a new switch arm.
+     */
+    public Money calculateCost(Usage usage, RateCard card) {
+        return switch (usage) {
+            case Usage(Resource(var type, Identity(var region, var tier)), var qty) -> card.rate(type, region, tier).times(qty);
+            case null -> Money.ZERO;
+        };
+    }
+
+    // --- CACHED APPROACH: Memoized rate resolution ---
+    /**
+     * Same result as the cache's underlying rules, but the rate of each
+     * (type, region, tier) shape is resolved once and then read from the
+     * cache, so a repeated shape costs one lookup and one multiplication.
+     */
+    public Money calculateCostCached(Usage usage, RateResolutionCache cache) {
+        return switch (usage) {
+            case Usage(Resource(var type, Identity(var region, var tier)), var qty) ->
+                Money.ofMicros(Money.timesMicros(cache.rateMicros(type, region, tier), qty));
+            case null -> Money.ZERO;
+        };
+    }
+
+    // --- BULK APPROACH: Columnar batches ---
+    /**
+     * Rates every row of a batch; result[i] is the cost of row i, in
+     * micro-units (see Money).
+     *
+     * The modern rules depend only on tier and region, so instead of walking
+     * the guards per row, this evaluates calculateCostExact once per
+     * (tier, region) pair present in the batch, on a quantity of 1. That
+     * yields a small table of rates, and each row becomes one table lookup
+     * and one fixed-point multiplication with the same rounding, so results
+     * are identical to calculateCostExact.
+     */
+    public long[] rate(UsageBatch batch) {
+        long[] costs = new long[batch.size()];
+        rate(batch, costs);
+        return costs;
+    }
+
+    /**
+     * Same as {@link #rate(UsageBatch)}, writing into a caller-supplied array
+     * so a bill run can reuse one buffer across batches.
+     */
+    public void rate(UsageBatch batch, long[] costs) {
+        int size = batch.size();
+        if (costs.length < size) {
+            throw new IllegalArgumentException("Output holds " + costs.length + " costs, batch has " + size);
+        }
+        int regionCount = batch.regions().size();
+        long[] rates = rateTable(batch);
+        double[] quantities = batch.quantities();
+        short[] regionCodes = batch.regionCodes();
+        short[] tierCodes = batch.tierCodes();
+        for (int i = 0; i < size; i++) {
+            costs[i] = Money.timesMicros(rates[tierCodes[i] * regionCount + regionCodes[i]], quantities[i]);
+        }
+    }
+
+    /**
+     * The exact total cost of a batch. Costs are added as longs, which is
+     * exact and associative, so the parallel sum equals any sequential one.
+     *
+     * @throws ArithmeticException if the total overflows
+     */
+    public Money totalExact(UsageBatch batch) {
+        return Money.ofMicros(LongStream.of(rate(batch)).parallel().reduce(0L, Math::addExact));
+    }
+
+    /** rates[tier * regionCount + region] in micro-units, from the per-record rules. */
+    private long[] rateTable(UsageBatch batch) {
+        int regionCount = batch.regions().size();
+        int tierCount = batch.tiers().size();
+        long[] rates = new long[tierCount * regionCount];
+        for (int tier = 0; tier < tierCount; tier++) {
+            for (int region = 0; region < regionCount; region++) {
+                Identity identity = new Identity(batch.regions().valueOf(region), batch.tiers().valueOf(tier));
+                rates[tier * regionCount + region] = calculateCostExact(new Usage(new Resource(null, identity), 1.0))
+                        .micros();
+            }
+        }
+        return rates;
+    }
 }
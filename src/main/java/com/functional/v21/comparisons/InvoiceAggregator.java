@@ -0,0 +1,471 @@
+package com.functional.v21.comparisons;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Streams Usage records into per-tenant invoices with bounded memory.
+ *
+ * Usages are priced with calculateCostExact and rolled up per Identity
+ * (the tenant) and resource type:
+ * - running totals live in a striped map: a fixed number of HashMaps, each
+ * guarded by its own lock, so threads feeding different tenants rarely
+ * contend
+ * - once more than maxLinesInMemory (identity, type) lines are held, every
+ * stripe is drained into one sorted run file on local disk
+ * - finish() k-way merges the remaining lines and the runs, combining lines
+ * that were spilled more than once, and emits one Invoice per tenant in
+ * (region, tier) order. At most MAX_FAN_IN runs are open at once: with more,
+ * groups of them are first merged into larger runs, pass by pass
+ *
+ * Peak heap is therefore about maxLinesInMemory lines (roughly 150 bytes
+ * each) plus a read buffer and one entry for each of at most MAX_FAN_IN
+ * open runs, however many tenants or spills there are. accept may be called from many threads; finish must be
+ * called once, after all accepts. close deletes the run files.
+ */
+public final class InvoiceAggregator implements AutoCloseable {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    /** The most runs merged, and so held open, at once. */
+    public static final int MAX_FAN_IN = 64;
+
+    public record LineItem(String type, double quantity, long usages, Money cost) {
+    }
+
+    public record Invoice(CloudBillingEngine.Identity identity, List<LineItem> lines, Money total) {
+    }
+
+    private record LineKey(CloudBillingEngine.Identity identity, String type) {
+    }
+
+    /** A line as spilled to or read back from a run. */
+    private record Entry(LineKey key, double quantity, long usages, long costMicros) {
+        Entry merge(Entry other) {
+            return new Entry(key, quantity + other.quantity, usages + other.usages,
+                    Math.addExact(costMicros, other.costMicros));
+        }
+    }
+
+    private static final class Line {
+        double quantity;
+        long usages;
+        long costMicros;
+    }
+
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<LineKey> KEY_ORDER = Comparator
+            .comparing((LineKey k) -> k.identity().region(), NULLS_FIRST)
+            .thenComparing(k -> k.identity().tier(), NULLS_FIRST)
+            .thenComparing(LineKey::type, NULLS_FIRST);
+
+    private final CloudBillingEngine engine;
+    private final Path spillDirectory;
+    private final int maxLinesInMemory;
+    private final List<Map<LineKey, Line>> stripes = new ArrayList<>();
+    private final AtomicInteger linesInMemory = new AtomicInteger();
+    private final AtomicBoolean spilling = new AtomicBoolean();
+    private final List<Path> runs = new ArrayList<>();
+
+    public InvoiceAggregator(CloudBillingEngine engine, Path spillDirectory, int maxLinesInMemory) {
+        this(engine, spillDirectory, maxLinesInMemory, DEFAULT_STRIPES);
+    }
+
+    public InvoiceAggregator(CloudBillingEngine engine, Path spillDirectory, int maxLinesInMemory, int stripeCount) {
+        if (maxLinesInMemory < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException(
+                    "maxLinesInMemory and stripeCount must be positive: " + maxLinesInMemory + ", " + stripeCount);
+        }
+        this.engine = engine;
+        this.spillDirectory = spillDirectory;
+        this.maxLinesInMemory = maxLinesInMemory;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds one usage to its tenant's running totals, spilling to disk if the
+     * memory budget is exceeded. Null usages, and usages without a resource
+     * or identity, cannot be attributed to a tenant and are ignored.
+     *
+     * @throws UncheckedIOException if a spill fails. Nothing is lost: the
+     *                              partial run is deleted, the drained lines
+     *                              go back into memory, and this usage has
+     *                              already been counted, so it must not be
+     *                              resubmitted
+     */
+    public void accept(CloudBillingEngine.Usage usage) {
+        if (usage == null || usage.resource() == null || usage.resource().identity() == null) {
+            return;
+        }
+        long cost = engine.calculateCostExact(usage).micros();
+        LineKey key = new LineKey(usage.resource().identity(), usage.resource().type());
+        Map<LineKey, Line> stripe = stripes.get(Math.floorMod(key.hashCode(), stripes.size()));
+        boolean overBudget = false;
+        synchronized (stripe) {
+            Line line = stripe.get(key);
+            if (line == null) {
+                line = new Line();
+                stripe.put(key, line);
+                // Counted under the stripe lock, so a concurrent drain sees it with the line
+                overBudget = linesInMemory.incrementAndGet() > maxLinesInMemory;
+            }
+            line.quantity += usage.quantity();
+            line.usages++;
+            line.costMicros = Math.addExact(line.costMicros, cost);
+        }
+        if (overBudget && spilling.compareAndSet(false, true)) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                spilling.set(false);
+            }
+        }
+    }
+
+    /** Number of run files written so far. */
+    public int spillCount() {
+        synchronized (runs) {
+            return runs.size();
+        }
+    }
+
+    /**
+     * Merges everything accepted so far and emits one invoice per tenant,
+     * ordered by region then tier, each with its lines ordered by type.
+     */
+    public void finish(Consumer<Invoice> sink) throws IOException {
+        List<Entry> remaining = drain();
+        List<Path> pending;
+        synchronized (runs) {
+            pending = new ArrayList<>(runs);
+        }
+        // Leave a slot in the final merge for the lines still in memory
+        while (pending.size() >= MAX_FAN_IN) {
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += MAX_FAN_IN) {
+                List<Path> group = pending.subList(from, Math.min(from + MAX_FAN_IN, pending.size()));
+                merged.add(group.size() == 1 ? group.get(0) : mergeRuns(group));
+            }
+            pending = merged;
+        }
+
+        List<RunCursor> cursors = new ArrayList<>();
+        try {
+            cursors.add(new MemoryCursor(remaining));
+            for (Path run : pending) {
+                cursors.add(new FileCursor(run));
+            }
+            InvoiceBuilder invoices = new InvoiceBuilder(sink);
+            merge(cursors, invoices::add);
+            invoices.flush();
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (runs) {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+    }
+
+    /** Empties every stripe into one sorted list. */
+    private List<Entry> drain() {
+        List<Entry> entries = new ArrayList<>();
+        for (Map<LineKey, Line> stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<LineKey, Line> line : stripe.entrySet()) {
+                    Line value = line.getValue();
+                    entries.add(new Entry(line.getKey(), value.quantity, value.usages, value.costMicros));
+                }
+                linesInMemory.addAndGet(-stripe.size());
+                stripe.clear();
+            }
+        }
+        entries.sort(Comparator.comparing(Entry::key, KEY_ORDER));
+        return entries;
+    }
+
+    private void spill() throws IOException {
+        List<Entry> entries = drain();
+        Path run = null;
+        try {
+            run = newRun();
+            try (RunWriter out = new RunWriter(run)) {
+                for (Entry entry : entries) {
+                    out.write(entry);
+                }
+            }
+        } catch (Throwable t) {
+            if (run != null) {
+                discard(run, t);
+            }
+            restore(entries);
+            throw t;
+        }
+    }
+
+    /** Puts drained lines back, merging with any accepted since the drain. */
+    private void restore(List<Entry> entries) {
+        for (Entry entry : entries) {
+            Map<LineKey, Line> stripe = stripes.get(Math.floorMod(entry.key().hashCode(), stripes.size()));
+            synchronized (stripe) {
+                Line line = stripe.get(entry.key());
+                if (line == null) {
+                    line = new Line();
+                    stripe.put(entry.key(), line);
+                    linesInMemory.incrementAndGet();
+                }
+                line.quantity += entry.quantity();
+                line.usages += entry.usages();
+                line.costMicros = Math.addExact(line.costMicros, entry.costMicros());
+            }
+        }
+    }
+
+    /** Deletes and unregisters a run that could not be written completely. */
+    private void discard(Path run, Throwable failure) {
+        synchronized (runs) {
+            runs.remove(run);
+        }
+        try {
+            Files.deleteIfExists(run);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /** Merges a group of runs into one new run, and deletes them. */
+    private Path mergeRuns(List<Path> group) throws IOException {
+        Path merged = newRun();
+        List<RunCursor> cursors = new ArrayList<>();
+        try (RunWriter out = new RunWriter(merged)) {
+            for (Path run : group) {
+                cursors.add(new FileCursor(run));
+            }
+            merge(cursors, out::write);
+        } catch (Throwable t) {
+            // The inputs are untouched; only the partial output goes
+            discard(merged, t);
+            throw t;
+        } finally {
+            for (RunCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+        synchronized (runs) {
+            for (Path run : group) {
+                Files.deleteIfExists(run);
+                runs.remove(run);
+            }
+        }
+        return merged;
+    }
+
+    /** Creates a run file, registered so that close deletes it. */
+    private Path newRun() throws IOException {
+        Path run = Files.createTempFile(spillDirectory, "invoice-run-", ".bin");
+        synchronized (runs) {
+            runs.add(run);
+        }
+        return run;
+    }
+
+    @FunctionalInterface
+    private interface EntrySink {
+        void accept(Entry entry) throws IOException;
+    }
+
+    /** Merges sorted cursors, passing on each key once with its lines combined. */
+    private static void merge(List<RunCursor> cursors, EntrySink sink) throws IOException {
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>(Comparator.comparing(RunCursor::current,
+                Comparator.comparing(Entry::key, KEY_ORDER)));
+        for (RunCursor cursor : cursors) {
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        Entry pending = null;
+        while (!heap.isEmpty()) {
+            RunCursor cursor = heap.poll();
+            Entry entry = cursor.current();
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+            if (pending != null && KEY_ORDER.compare(pending.key(), entry.key()) == 0) {
+                pending = pending.merge(entry);
+            } else {
+                if (pending != null) {
+                    sink.accept(pending);
+                }
+                pending = entry;
+            }
+        }
+        if (pending != null) {
+            sink.accept(pending);
+        }
+    }
+
+    /** Groups consecutive merged lines of the same identity into invoices. */
+    private static final class InvoiceBuilder {
+        private final Consumer<Invoice> sink;
+        private CloudBillingEngine.Identity identity;
+        private final List<LineItem> lines = new ArrayList<>();
+        private long total;
+
+        InvoiceBuilder(Consumer<Invoice> sink) {
+            this.sink = sink;
+        }
+
+        void add(Entry entry) {
+            if (identity != null && !identity.equals(entry.key().identity())) {
+                flush();
+            }
+            identity = entry.key().identity();
+            lines.add(new LineItem(entry.key().type(), entry.quantity(), entry.usages(),
+                    Money.ofMicros(entry.costMicros())));
+            total = Math.addExact(total, entry.costMicros());
+        }
+
+        void flush() {
+            if (identity != null) {
+                sink.accept(new Invoice(identity, List.copyOf(lines), Money.ofMicros(total)));
+            }
+            identity = null;
+            lines.clear();
+            total = 0;
+        }
+    }
+
+    private interface RunCursor extends AutoCloseable {
+        /** Moves to the next entry; false when the run is exhausted. */
+        boolean advance() throws IOException;
+
+        Entry current();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class MemoryCursor implements RunCursor {
+        private final Iterator<Entry> entries;
+        private Entry current;
+
+        MemoryCursor(List<Entry> entries) {
+            this.entries = entries.iterator();
+        }
+
+        @Override
+        public boolean advance() {
+            current = entries.hasNext() ? entries.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public Entry current() {
+            return current;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Writes a run: each entry is preceded by a true flag, and the run ends
+     * with a false one, so a merge can stream entries without counting them
+     * first.
+     */
+    private static final class RunWriter implements AutoCloseable {
+        private final DataOutputStream out;
+
+        RunWriter(Path run) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)));
+        }
+
+        void write(Entry entry) throws IOException {
+            out.writeBoolean(true);
+            writeNullable(out, entry.key().identity().region());
+            writeNullable(out, entry.key().identity().tier());
+            writeNullable(out, entry.key().type());
+            out.writeDouble(entry.quantity());
+            out.writeLong(entry.usages());
+            out.writeLong(entry.costMicros());
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                out.writeBoolean(false);
+            }
+        }
+    }
+
+    private static final class FileCursor implements RunCursor {
+        private final DataInputStream in;
+        private Entry current;
+
+        FileCursor(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        @Override
+        public boolean advance() throws IOException {
+            if (!in.readBoolean()) {
+                current = null;
+                return false;
+            }
+            CloudBillingEngine.Identity identity = new CloudBillingEngine.Identity(readNullable(in), readNullable(in));
+            LineKey key = new LineKey(identity, readNullable(in));
+            current = new Entry(key, in.readDouble(), in.readLong(), in.readLong());
+            return true;
+        }
+
+        @Override
+        public Entry current() {
+            return current;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
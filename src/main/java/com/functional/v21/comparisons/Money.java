@@ -0,0 +1,124 @@
+package com.functional.v21.comparisons;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * An exact amount of money, stored as a long count of micro-units (1e-6).
+ *
+ * double cannot represent 0.10 or 0.15 exactly, so billing with it drifts
+ * (0.10 + 0.05 is 0.15000000000000002), and BigDecimal allocates on every
+ * operation. Scaled longs are exact and as cheap as primitive arithmetic:
+ * - addition and subtraction are exact, and fail with ArithmeticException
+ * instead of silently overflowing; since they are exact they are also
+ * associative, so parallel totals do not depend on summation order
+ * - multiplying by a quantity rounds the result to the nearest micro-unit,
+ * ties to even (banker's rounding), the same way every time
+ * - when a product does not fit in 64 bits, it is recomputed with BigInteger
+ * and only fails if the rounded result itself does not fit
+ *
+ * Quantities given as double are first rounded to the nearest micro-unit of
+ * quantity.
+ */
+public record Money(long micros) implements Comparable<Money> {
+
+    public static final int SCALE = 6;
+    public static final long MICROS_PER_UNIT = 1_000_000L;
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMicros(long micros) {
+        return new Money(micros);
+    }
+
+    /**
+     * Parses a decimal string such as "0.15" exactly; digits beyond the sixth
+     * decimal are rounded half-even.
+     *
+     * @throws NumberFormatException if the text is not a decimal number
+     * @throws ArithmeticException   if the amount does not fit
+     */
+    public static Money parse(String amount) {
+        return new Money(new BigDecimal(amount.strip()).setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue()
+                .longValueExact());
+    }
+
+    /**
+     * Converts a double, rounding to the nearest micro-unit.
+     */
+    public static Money of(double amount) {
+        return new Money(toMicros(amount));
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(micros, other.micros));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(micros, other.micros));
+    }
+
+    /**
+     * This amount per unit, times a quantity, rounded half-even to a
+     * micro-unit.
+     *
+     * @throws ArithmeticException if the quantity is not finite or the result
+     *                             does not fit
+     */
+    public Money times(double quantity) {
+        return new Money(timesMicros(micros, quantity));
+    }
+
+    public double toDouble() {
+        return micros / (double) MICROS_PER_UNIT;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(micros, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(micros, other.micros);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * The allocation-free core of {@link #times(double)}, for bulk loops.
+     */
+    static long timesMicros(long rateMicros, double quantity) {
+        long quantityMicros = toMicros(quantity);
+        long high = Math.multiplyHigh(rateMicros, quantityMicros);
+        long low = rateMicros * quantityMicros;
+        if (high == (low >> 63)) {
+            return divideHalfEven(low, MICROS_PER_UNIT);
+        }
+        // Product needs more than 64 bits
+        return new BigDecimal(BigInteger.valueOf(rateMicros).multiply(BigInteger.valueOf(quantityMicros)), SCALE)
+                .setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    static long toMicros(double value) {
+        double scaled = value * MICROS_PER_UNIT;
+        if (Math.abs(scaled) < 0x1p52) {
+            return (long) Math.rint(scaled);
+        }
+        if (!Double.isFinite(value)) {
+            throw new ArithmeticException("Not a finite amount: " + value);
+        }
+        return new BigDecimal(value).setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long twiceRemainder = Math.abs(dividend % divisor) * 2;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient += dividend < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
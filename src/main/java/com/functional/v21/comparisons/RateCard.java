@@ -0,0 +1,226 @@
+package com.functional.v21.comparisons;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Billing rates as data instead of switch arms.
+ *
+ * A rate card is a list of rules "type,region,tier,rate", where any of the
+ * three key fields may be "*" to match everything. Loading compiles the rules
+ * into an immutable lookup structure:
+ * - every type, region and tier named by a rule is interned to a small int
+ * (0 stands for "*")
+ * - the three ids are packed into one long key
+ * - keys and rates (exact micro-units, see Money) live in a primitive
+ * open-addressing hash table
+ *
+ * A lookup interns the three strings (three HashMap hits on cached string
+ * hashes) and then probes the table from the most to the least specific
+ * combination, at most 8 probes whatever the number of rules. Fully
+ * specified keys win, then those with two fields, then one, then the default;
+ * among equally specific keys type beats region beats tier.
+ *
+ * The file format allows blank lines and '#' comments.
+ */
+public final class RateCard {
+
+    /** One rule as written in the file; "*" is a wildcard. */
+    public record Rule(String type, String region, String tier, Money rate) {
+        public Rule {
+            Objects.requireNonNull(type, "type");
+            Objects.requireNonNull(region, "region");
+            Objects.requireNonNull(tier, "tier");
+            Objects.requireNonNull(rate, "rate");
+            if (rate.micros() == NO_RATE) {
+                throw new IllegalArgumentException("Rate out of range: " + rate);
+            }
+        }
+    }
+
+    public static final String WILDCARD = "*";
+
+    private static final int ID_BITS = 21;
+    private static final int MAX_IDS = 1 << ID_BITS;
+    private static final long NO_RATE = Long.MIN_VALUE;
+
+    private final List<Rule> rules;
+    private final Map<String, Integer> typeIds;
+    private final Map<String, Integer> regionIds;
+    private final Map<String, Integer> tierIds;
+    private final long[] keys;
+    private final long[] rates;
+    private final int mask;
+
+    private RateCard(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+        Map<String, Integer> types = new HashMap<>();
+        Map<String, Integer> regions = new HashMap<>();
+        Map<String, Integer> tiers = new HashMap<>();
+        int capacity = Integer.highestOneBit(Math.max(4, rules.size() * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.rates = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, -1L);
+        for (Rule rule : this.rules) {
+            long key = pack(intern(types, rule.type()), intern(regions, rule.region()), intern(tiers, rule.tier()));
+            int slot = slot(key);
+            while (keys[slot] != -1L) {
+                if (keys[slot] == key) {
+                    throw new IllegalArgumentException("Duplicate rule for " + rule.type() + "," + rule.region() + ","
+                            + rule.tier());
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            rates[slot] = rule.rate().micros();
+        }
+        this.typeIds = Map.copyOf(types);
+        this.regionIds = Map.copyOf(regions);
+        this.tierIds = Map.copyOf(tiers);
+    }
+
+    public static RateCard of(List<Rule> rules) {
+        return new RateCard(rules);
+    }
+
+    /**
+     * The rates hard-coded in CloudBillingEngine: 0.10 per unit, 0.20 for
+     * PREMIUM, plus 0.05 in the EU.
+     */
+    public static RateCard defaults() {
+        return parse(List.of(
+                "# type,region,tier,rate",
+                "*,*,*,0.10",
+                "*,*,PREMIUM,0.20",
+                "*,EU,*,0.15",
+                "*,EU,PREMIUM,0.25"));
+    }
+
+    public static RateCard load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException for malformed lines or duplicate keys
+     */
+    public static RateCard parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != 4) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected type,region,tier,rate but got " + line);
+            }
+            try {
+                rules.add(new Rule(fields[0].strip(), fields[1].strip(), fields[2].strip(),
+                        Money.parse(fields[3])));
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": invalid rate " + fields[3].strip(), e);
+            }
+        }
+        return new RateCard(rules);
+    }
+
+    public List<Rule> rules() {
+        return rules;
+    }
+
+    /**
+     * @return the per-unit rate of the most specific matching rule
+     * @throws NoSuchElementException if no rule matches
+     */
+    public Money rate(String type, String region, String tier) {
+        long rate = find(type, region, tier);
+        if (rate == NO_RATE) {
+            throw new NoSuchElementException("No rate for " + type + "," + region + "," + tier);
+        }
+        return Money.ofMicros(rate);
+    }
+
+    /**
+     * @return the rate in micro-units, or NO_RATE if no rule matches
+     */
+    long find(String type, String region, String tier) {
+        int t = idOf(typeIds, type);
+        int r = idOf(regionIds, region);
+        int s = idOf(tierIds, tier);
+        long rate;
+        // Most to least specific; an unknown value (-1) can only match "*"
+        if (t > 0 && r > 0 && s > 0 && (rate = get(pack(t, r, s))) != NO_RATE) {
+            return rate;
+        }
+        if (t > 0 && r > 0 && (rate = get(pack(t, r, 0))) != NO_RATE) {
+            return rate;
+        }
+        if (t > 0 && s > 0 && (rate = get(pack(t, 0, s))) != NO_RATE) {
+            return rate;
+        }
+        if (r > 0 && s > 0 && (rate = get(pack(0, r, s))) != NO_RATE) {
+            return rate;
+        }
+        if (t > 0 && (rate = get(pack(t, 0, 0))) != NO_RATE) {
+            return rate;
+        }
+        if (r > 0 && (rate = get(pack(0, r, 0))) != NO_RATE) {
+            return rate;
+        }
+        if (s > 0 && (rate = get(pack(0, 0, s))) != NO_RATE) {
+            return rate;
+        }
+        return get(pack(0, 0, 0));
+    }
+
+    private long get(long key) {
+        int slot = slot(key);
+        long found;
+        while ((found = keys[slot]) != -1L) {
+            if (found == key) {
+                return rates[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_RATE;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long pack(int type, int region, int tier) {
+        return ((long) type << (2 * ID_BITS)) | ((long) region << ID_BITS) | tier;
+    }
+
+    private static int intern(Map<String, Integer> ids, String value) {
+        if (WILDCARD.equals(value)) {
+            return 0;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = ids.size() + 1;
+            if (id >= MAX_IDS) {
+                throw new IllegalArgumentException("Too many distinct values: " + id);
+            }
+            ids.put(value, id);
+        }
+        return id;
+    }
+
+    private static int idOf(Map<String, Integer> ids, String value) {
+        Integer id = value == null ? null : ids.get(value);
+        return id == null ? -1 : id;
+    }
+}
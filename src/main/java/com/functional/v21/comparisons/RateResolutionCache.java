@@ -0,0 +1,128 @@
+package com.functional.v21.comparisons;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes rate resolution per (type, region, tier).
+ *
+ * Billing data repeats a handful of resource shapes over and over, yet
+ * calculateCostExact re-runs its guard chain, with string equality, for
+ * every row. This cache resolves each shape once and then serves the rate in
+ * micro-units, leaving one multiplication per row.
+ *
+ * It is a small, lock-free, direct-mapped table: each key hashes to exactly
+ * one slot of an AtomicReferenceArray. A lookup is one volatile read and a
+ * comparison of the three strings, by reference first, so callers that reuse
+ * the same String instances (interned, or from a UsageBatch dictionary)
+ * never call equals. A miss resolves the rate and overwrites the slot, which
+ * is the eviction policy: the size never exceeds the capacity, and a
+ * colliding shape simply replaces the older one. Racing writers can only
+ * replace each other's entries, never corrupt them, because slots are
+ * immutable.
+ */
+public final class RateResolutionCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Computes a rate in micro-units for a resource shape. */
+    @FunctionalInterface
+    public interface Resolver {
+        long rateMicros(String type, String region, String tier);
+    }
+
+    /**
+     * @param evictions misses that replaced another shape's entry
+     */
+    public record Stats(long hits, long misses, long evictions) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private record Slot(String type, String region, String tier, long rateMicros) {
+        boolean matches(String otherType, String otherRegion, String otherTier) {
+            return same(type, otherType) && same(region, otherRegion) && same(tier, otherTier);
+        }
+
+        private static boolean same(String a, String b) {
+            return a == b || (a != null && a.equals(b));
+        }
+    }
+
+    private final Resolver resolver;
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public RateResolutionCache(Resolver resolver, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.resolver = resolver;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * A cache over the engine's built-in rules (calculateCostExact).
+     */
+    public static RateResolutionCache of(CloudBillingEngine engine) {
+        return new RateResolutionCache((type, region, tier) -> engine.calculateCostExact(new CloudBillingEngine.Usage(
+                new CloudBillingEngine.Resource(type, new CloudBillingEngine.Identity(region, tier)), 1.0)).micros(),
+                DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A cache over a rate card. Cards are immutable, so after a reload create
+     * a new cache for the new card.
+     */
+    public static RateResolutionCache of(RateCard card) {
+        return new RateResolutionCache((type, region, tier) -> card.rate(type, region, tier).micros(),
+                DEFAULT_CAPACITY);
+    }
+
+    public long rateMicros(String type, String region, String tier) {
+        int index = indexOf(type, region, tier);
+        Slot slot = slots.get(index);
+        if (slot != null && slot.matches(type, region, tier)) {
+            hits.increment();
+            return slot.rateMicros();
+        }
+        misses.increment();
+        long rate = resolver.rateMicros(type, region, tier);
+        Slot previous = slots.getAndSet(index, new Slot(type, region, tier, rate));
+        if (previous != null) {
+            evictions.increment();
+        }
+        return rate;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    private int indexOf(String type, String region, String tier) {
+        int hash = (hashOf(type) * 31 + hashOf(region)) * 31 + hashOf(tier);
+        hash *= 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int hashOf(String value) {
+        return value == null ? 0 : value.hashCode();
+    }
+}
@@ -0,0 +1,66 @@
+package com.functional.v21.comparisons;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A RateCard backed by a file that can be reloaded while billing runs.
+ *
+ * Cards are immutable, so a reload builds a complete new card off to the
+ * side and publishes it with a single atomic reference swap (copy-on-write).
+ * Billing threads just read the current reference: they never lock, and each
+ * lookup sees either the old card or the new one, never a mix.
+ *
+ * If the new file fails to parse, the current card stays in place.
+ */
+public final class ReloadableRateCard {
+
+    private record Loaded(RateCard card, FileTime modified) {
+    }
+
+    private final Path file;
+    private final AtomicReference<Loaded> current = new AtomicReference<>();
+
+    public ReloadableRateCard(Path file) throws IOException {
+        this.file = file;
+        reload();
+    }
+
+    public RateCard current() {
+        return current.get().card();
+    }
+
+    public Money rate(String type, String region, String tier) {
+        return current().rate(type, region, tier);
+    }
+
+    /**
+     * Reads the file again and swaps in the new card.
+     *
+     * @throws IllegalArgumentException if the file is malformed; the previous
+     *                                  card is kept
+     */
+    public RateCard reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        RateCard card = RateCard.load(file);
+        current.set(new Loaded(card, modified));
+        return card;
+    }
+
+    /**
+     * Reloads only if the file's modification time changed since the last
+     * load, so it can be polled cheaply from a scheduler.
+     *
+     * @return whether a new card was swapped in
+     */
+    public boolean reloadIfModified() throws IOException {
+        if (Files.getLastModifiedTime(file).equals(current.get().modified())) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+}
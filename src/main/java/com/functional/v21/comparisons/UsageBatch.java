@@ -0,0 +1,189 @@
+package com.functional.v21.comparisons;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar (structure-of-arrays) store for usage records, for bulk billing.
+ *
+ * Each Usage field lives in its own array:
+ * - quantities in a double[]
+ * - resource type, region and tier dictionary-encoded into short[] columns
+ *
+ * Rating a batch is then a loop over primitive arrays, and the rate of a row
+ * depends only on two small codes instead of string comparisons. Batches are
+ * int-indexed; very large bill runs are processed as a sequence of batches.
+ */
+public final class UsageBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Dictionary types = new Dictionary();
+    private final Dictionary regions = new Dictionary();
+    private final Dictionary tiers = new Dictionary();
+
+    private double[] quantities;
+    private short[] typeCodes;
+    private short[] regionCodes;
+    private short[] tierCodes;
+    private int size;
+
+    public UsageBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public UsageBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.quantities = new double[capacity];
+        this.typeCodes = new short[capacity];
+        this.regionCodes = new short[capacity];
+        this.tierCodes = new short[capacity];
+    }
+
+    public static UsageBatch of(List<CloudBillingEngine.Usage> usages) {
+        UsageBatch batch = new UsageBatch(usages.size());
+        for (CloudBillingEngine.Usage usage : usages) {
+            batch.add(usage);
+        }
+        return batch;
+    }
+
+    /**
+     * @throws NullPointerException if the usage, its resource or its identity
+     *                              is null, since such records cannot be rated
+     */
+    public void add(CloudBillingEngine.Usage usage) {
+        CloudBillingEngine.Resource resource = usage.resource();
+        CloudBillingEngine.Identity identity = resource.identity();
+        add(resource.type(), identity.region(), identity.tier(), usage.quantity());
+    }
+
+    public void add(String type, String region, String tier, double quantity) {
+        if (size == quantities.length) {
+            grow();
+        }
+        quantities[size] = quantity;
+        typeCodes[size] = (short) types.encode(type);
+        regionCodes[size] = (short) regions.encode(region);
+        tierCodes[size] = (short) tiers.encode(tier);
+        size++;
+    }
+
+    private void grow() {
+        int capacity = quantities.length * 2;
+        quantities = Arrays.copyOf(quantities, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        regionCodes = Arrays.copyOf(regionCodes, capacity);
+        tierCodes = Arrays.copyOf(tierCodes, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double quantityAt(int index) {
+        checkIndex(index);
+        return quantities[index];
+    }
+
+    public String typeAt(int index) {
+        checkIndex(index);
+        return types.valueOf(typeCodes[index]);
+    }
+
+    public String regionAt(int index) {
+        checkIndex(index);
+        return regions.valueOf(regionCodes[index]);
+    }
+
+    public String tierAt(int index) {
+        checkIndex(index);
+        return tiers.valueOf(tierCodes[index]);
+    }
+
+    /**
+     * Materializes a single row back into a Usage record.
+     */
+    public CloudBillingEngine.Usage usageAt(int index) {
+        checkIndex(index);
+        return new CloudBillingEngine.Usage(new CloudBillingEngine.Resource(types.valueOf(typeCodes[index]),
+                new CloudBillingEngine.Identity(regions.valueOf(regionCodes[index]), tiers.valueOf(tierCodes[index]))),
+                quantities[index]);
+    }
+
+    public Dictionary types() {
+        return types;
+    }
+
+    public Dictionary regions() {
+        return regions;
+    }
+
+    public Dictionary tiers() {
+        return tiers;
+    }
+
+    // Package-private raw column access for tight loops in the engine.
+    // Only the first size() entries are meaningful.
+
+    double[] quantities() {
+        return quantities;
+    }
+
+    short[] typeCodes() {
+        return typeCodes;
+    }
+
+    short[] regionCodes() {
+        return regionCodes;
+    }
+
+    short[] tierCodes() {
+        return tierCodes;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Assigns each distinct string (null included) a small code in order of
+     * first appearance.
+     */
+    public static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[8];
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size();
+            if (next > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct values: " + next);
+            }
+            if (next == values.length) {
+                values = Arrays.copyOf(values, next * 2);
+            }
+            values[next] = value;
+            codes.put(value, next);
+            return next;
+        }
+
+        public String valueOf(int code) {
+            if (code < 0 || code >= codes.size()) {
+                throw new IllegalArgumentException("Unknown code: " + code);
+            }
+            return values[code];
+        }
+
+        public int size() {
+            return codes.size();
+        }
+    }
+}
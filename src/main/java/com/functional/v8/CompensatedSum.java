@@ -0,0 +1,127 @@
+package com.functional.v8;
+
+/**
+ * A running double sum using Neumaier's variant of Kahan summation.
+ *
+ * Naive summation loses low-order bits on every add, so the result depends on
+ * the order in which values are added. Tracking the lost bits in a separate
+ * compensation term keeps the error independent of the input size, which is
+ * what makes parallel totals reproducible when partial sums are combined in a
+ * fixed order.
+ *
+ * Infinities and NaNs are counted instead of being fed into the compensated
+ * terms (where they would turn every later result into NaN), so the result
+ * follows plain IEEE addition: Infinity plus anything finite is Infinity, and
+ * Infinity plus -Infinity is NaN. Counting them also means a partial sum can
+ * be subtracted again exactly, which sliding windows rely on.
+ *
+ * This is the one implementation of compensated summation in the package;
+ * CurrencyStatistics and WindowedAggregator keep instances of it rather than
+ * their own copies.
+ *
+ * Works as a mutable container for DoubleStream.collect:
+ * {@code stream.collect(CompensatedSum::new, CompensatedSum::add, CompensatedSum::combine)}
+ */
+public final class CompensatedSum {
+
+    private double sum;
+    private double compensation;
+    // Plain sum of the finite values, used when the compensated terms overflow
+    private double simpleSum;
+    private long positiveInfinities;
+    private long negativeInfinities;
+    private long nans;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            nans++;
+        } else if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinities++;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinities++;
+        } else {
+            addFinite(value);
+            simpleSum += value;
+        }
+    }
+
+    private void addFinite(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    /**
+     * Adds another partial sum to this one and returns this.
+     */
+    public CompensatedSum combine(CompensatedSum other) {
+        addFinite(other.sum);
+        addFinite(other.compensation);
+        simpleSum += other.simpleSum;
+        positiveInfinities += other.positiveInfinities;
+        negativeInfinities += other.negativeInfinities;
+        nans += other.nans;
+        return this;
+    }
+
+    /**
+     * Removes a partial sum previously combined into (or added to) this one
+     * and returns this.
+     */
+    public CompensatedSum subtract(CompensatedSum other) {
+        addFinite(-other.sum);
+        addFinite(-other.compensation);
+        simpleSum -= other.simpleSum;
+        positiveInfinities -= other.positiveInfinities;
+        negativeInfinities -= other.negativeInfinities;
+        nans -= other.nans;
+        return this;
+    }
+
+    /**
+     * Removes a single value previously added, the inverse of add.
+     */
+    public void subtract(double value) {
+        if (Double.isNaN(value)) {
+            nans--;
+        } else if (value == Double.POSITIVE_INFINITY) {
+            positiveInfinities--;
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            negativeInfinities--;
+        } else {
+            addFinite(-value);
+            simpleSum -= value;
+        }
+    }
+
+    /**
+     * Back to zero, so one instance can be reused.
+     */
+    public void reset() {
+        sum = 0.0;
+        compensation = 0.0;
+        simpleSum = 0.0;
+        positiveInfinities = 0;
+        negativeInfinities = 0;
+        nans = 0;
+    }
+
+    public double sum() {
+        if (nans > 0 || (positiveInfinities > 0 && negativeInfinities > 0)) {
+            return Double.NaN;
+        }
+        if (positiveInfinities > 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (negativeInfinities > 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double total = sum + compensation;
+        // Finite values overflowed: fall back to the plain sum's infinity
+        return Double.isNaN(total) ? simpleSum : total;
+    }
+}
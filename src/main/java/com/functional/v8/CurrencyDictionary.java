@@ -0,0 +1,69 @@
+package com.functional.v8;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for currency codes.
+ *
+ * Each distinct currency string is assigned a small integer code the first time
+ * it is seen. Columnar structures store the code instead of the string, so
+ * comparing two currencies becomes an int comparison instead of
+ * String.equals.
+ */
+public final class CurrencyDictionary {
+
+    /** Returned by {@link #codeOf(String)} for currencies never encoded. */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] currencies = new String[8];
+
+    /**
+     * Returns the code for a currency, assigning a new one if needed.
+     */
+    public int encode(String currency) {
+        Integer code = codes.get(currency);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        if (next > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct currencies: " + next);
+        }
+        if (next == currencies.length) {
+            currencies = Arrays.copyOf(currencies, next * 2);
+        }
+        currencies[next] = currency;
+        codes.put(currency, next);
+        return next;
+    }
+
+    /**
+     * Looks up an existing code without assigning one.
+     *
+     * @return the code, or {@link #UNKNOWN} if the currency was never encoded
+     */
+    public int codeOf(String currency) {
+        Integer code = codes.get(currency);
+        return code == null ? UNKNOWN : code;
+    }
+
+    /**
+     * Decodes a code back into its currency string.
+     */
+    public String currencyOf(int code) {
+        if (code < 0 || code >= codes.size()) {
+            throw new IndexOutOfBoundsException("Unknown currency code: " + code);
+        }
+        return currencies[code];
+    }
+
+    /**
+     * Number of distinct currencies encoded so far.
+     */
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.functional.v8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * Per-currency count/sum/min/max/average, gathered in a single pass.
+ *
+ * Currencies are dictionary-encoded, and the statistics live in primitive
+ * arrays indexed by currency code, so the "map" is keyed by an int and no
+ * per-transaction objects are created. Think of it as a
+ * DoubleSummaryStatistics per currency without the Map of boxed values.
+ * Sums are compensated (see CompensatedSum), so merging partials from a
+ * parallel stream does not accumulate rounding error.
+ *
+ * Instances are mutable accumulators and not thread-safe; use
+ * {@link #collector()} to aggregate in parallel streams.
+ */
+public final class CurrencyStatistics {
+
+    private final CurrencyDictionary dictionary = new CurrencyDictionary();
+    private long[] counts = new long[4];
+    private CompensatedSum[] sums = new CompensatedSum[4];
+    private double[] mins = new double[4];
+    private double[] maxs = new double[4];
+
+    /**
+     * A Collector that aggregates transactions into per-currency statistics.
+     * Partial results from parallel segments are merged by currency, so the
+     * result does not depend on how the stream was split.
+     */
+    public static Collector<DataProcessingPipeline.Transaction, ?, CurrencyStatistics> collector() {
+        return Collector.of(CurrencyStatistics::new, CurrencyStatistics::accept, CurrencyStatistics::combine);
+    }
+
+    /**
+     * Aggregates a columnar batch. The batch's own currency codes are reused,
+     * so the loop never touches a String.
+     */
+    public static CurrencyStatistics of(TransactionBatch batch) {
+        CurrencyStatistics stats = new CurrencyStatistics();
+        CurrencyDictionary source = batch.dictionary();
+        for (int code = 0; code < source.size(); code++) {
+            stats.slot(stats.dictionary.encode(source.currencyOf(code)));
+        }
+        double[] amounts = batch.amounts();
+        short[] codes = batch.currencyCodes();
+        int size = batch.size();
+        for (int i = 0; i < size; i++) {
+            stats.accept(codes[i], amounts[i]);
+        }
+        return stats;
+    }
+
+    public void accept(DataProcessingPipeline.Transaction transaction) {
+        accept(transaction.getCurrency(), transaction.getAmount());
+    }
+
+    public void accept(String currency, double amount) {
+        int code = dictionary.encode(currency);
+        slot(code);
+        accept(code, amount);
+    }
+
+    private void accept(int code, double amount) {
+        if (counts[code]++ == 0) {
+            mins[code] = amount;
+            maxs[code] = amount;
+        } else {
+            mins[code] = Math.min(mins[code], amount);
+            maxs[code] = Math.max(maxs[code], amount);
+        }
+        sums[code].add(amount);
+    }
+
+    /**
+     * Merges another accumulator into this one and returns this.
+     */
+    public CurrencyStatistics combine(CurrencyStatistics other) {
+        for (int otherCode = 0; otherCode < other.dictionary.size(); otherCode++) {
+            long otherCount = other.counts[otherCode];
+            if (otherCount == 0) {
+                continue;
+            }
+            int code = dictionary.encode(other.dictionary.currencyOf(otherCode));
+            slot(code);
+            if (counts[code] == 0) {
+                mins[code] = other.mins[otherCode];
+                maxs[code] = other.maxs[otherCode];
+            } else {
+                mins[code] = Math.min(mins[code], other.mins[otherCode]);
+                maxs[code] = Math.max(maxs[code], other.maxs[otherCode]);
+            }
+            counts[code] += otherCount;
+            sums[code].combine(other.sums[otherCode]);
+        }
+        return this;
+    }
+
+    private void slot(int code) {
+        if (code >= counts.length) {
+            int capacity = Math.max(code + 1, counts.length * 2);
+            counts = Arrays.copyOf(counts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+        }
+        if (sums[code] == null) {
+            sums[code] = new CompensatedSum();
+        }
+    }
+
+    /**
+     * Currencies that have at least one transaction, in first-seen order.
+     */
+    public List<String> currencies() {
+        List<String> result = new ArrayList<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (counts[code] > 0) {
+                result.add(dictionary.currencyOf(code));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public long getCount(String currency) {
+        int code = dictionary.codeOf(currency);
+        return code == CurrencyDictionary.UNKNOWN ? 0 : counts[code];
+    }
+
+    public double getSum(String currency) {
+        int code = dictionary.codeOf(currency);
+        return code == CurrencyDictionary.UNKNOWN ? 0.0 : sums[code].sum();
+    }
+
+    /**
+     * @return the smallest amount, or positive infinity if there are none
+     *         (matching DoubleSummaryStatistics)
+     */
+    public double getMin(String currency) {
+        int code = dictionary.codeOf(currency);
+        return code == CurrencyDictionary.UNKNOWN || counts[code] == 0 ? Double.POSITIVE_INFINITY : mins[code];
+    }
+
+    /**
+     * @return the largest amount, or negative infinity if there are none
+     *         (matching DoubleSummaryStatistics)
+     */
+    public double getMax(String currency) {
+        int code = dictionary.codeOf(currency);
+        return code == CurrencyDictionary.UNKNOWN || counts[code] == 0 ? Double.NEGATIVE_INFINITY : maxs[code];
+    }
+
+    /**
+     * @return the mean amount, or zero if there are none
+     */
+    public double getAverage(String currency) {
+        long count = getCount(currency);
+        return count == 0 ? 0.0 : getSum(currency) / count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CurrencyStatistics{");
+        List<String> currencies = currencies();
+        for (int i = 0; i < currencies.size(); i++) {
+            String currency = currencies.get(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(currency).append("=[count=").append(getCount(currency))
+                    .append(", sum=").append(getSum(currency))
+                    .append(", min=").append(getMin(currency))
+                    .append(", max=").append(getMax(currency)).append(']');
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -1,19 +1,33 @@
 package com.functional.v8;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Demonstrates the core Functional Programming features introduced in Java 8:
  * Streams, Lambdas, Optional, and standard Functional Interfaces.
  *
  * This class simulates a data processing pipeline for a list of transactions.
+ * Each pipeline runs in an ExecutionMode (sequential by default); parallel
+ * totals use compensated summation so they are stable across runs.
  */
 public class DataProcessingPipeline {
 
+    private static final int NOT_FOUND = Integer.MAX_VALUE;
+
     /**
      * A simple transaction record (immutable data carrier).
      * In Java 14+, this would be a 'record', but for Java 8 simulation, we use a
@@ -48,6 +62,29 @@ public class DataProcessingPipeline {
         }
     }
 
+    private final ExecutionMode mode;
+
+    /**
+     * Creates a pipeline that runs every operation sequentially.
+     */
+    public DataProcessingPipeline() {
+        this(ExecutionMode.sequential());
+    }
+
+    /**
+     * Creates a pipeline that runs its operations in the given mode.
+     */
+    public DataProcessingPipeline(ExecutionMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("mode");
+        }
+        this.mode = mode;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return mode;
+    }
+
     /**
      * Processes a list of transactions to calculate the total amount for a specific
      * currency.
@@ -58,10 +95,26 @@ public class DataProcessingPipeline {
      * @return Total amount in that currency
      */
     public double calculateTotalInCurrency(List<Transaction> transactions, String targetCurrency) {
-        return transactions.stream()
-                .filter(t -> t.getCurrency().equals(targetCurrency))
-                .mapToDouble(Transaction::getAmount)
-                .sum();
+        switch (mode.getKind()) {
+            case PARALLEL_STREAM:
+                return transactions.parallelStream()
+                        .filter(t -> t.getCurrency().equals(targetCurrency))
+                        .mapToDouble(Transaction::getAmount)
+                        .collect(CompensatedSum::new, CompensatedSum::add, CompensatedSum::combine)
+                        .sum();
+            case FORK_JOIN:
+                List<Transaction> list = randomAccess(transactions);
+                return sumWhere(list.size(),
+                        i -> list.get(i).getCurrency().equals(targetCurrency),
+                        i -> list.get(i).getAmount());
+            default:
+                // Same summation as every other path, so the modes agree to the last bit
+                return transactions.stream()
+                        .filter(t -> t.getCurrency().equals(targetCurrency))
+                        .mapToDouble(Transaction::getAmount)
+                        .collect(CompensatedSum::new, CompensatedSum::add, CompensatedSum::combine)
+                        .sum();
+        }
     }
 
     /**
@@ -72,8 +125,21 @@ public class DataProcessingPipeline {
      * @return Map of currency to list of transactions
      */
     public Map<String, List<Transaction>> groupTransactionsByCurrency(List<Transaction> transactions) {
-        return transactions.stream()
-                .collect(Collectors.groupingBy(Transaction::getCurrency));
+        return collect(transactions, Collectors.groupingBy(Transaction::getCurrency));
+    }
+
+    /**
+     * Computes count/sum/min/max/average for every currency in one pass.
+     * Unlike calling calculateTotalInCurrency once per currency, the list is
+     * scanned once, and unlike groupTransactionsByCurrency no per-currency
+     * lists are built.
+     * Demonstrates: a custom Collector.
+     *
+     * @param transactions List of transactions
+     * @return Per-currency statistics
+     */
+    public CurrencyStatistics summarizeByCurrency(List<Transaction> transactions) {
+        return collect(transactions, CurrencyStatistics.collector());
     }
 
     /**
@@ -85,8 +151,303 @@ public class DataProcessingPipeline {
      * @return Optional containing the transaction if found, empty otherwise
      */
     public Optional<Transaction> findHighValueTransaction(List<Transaction> transactions, double threshold) {
-        return transactions.stream()
-                .filter(t -> t.getAmount() > threshold)
-                .findFirst();
+        switch (mode.getKind()) {
+            case PARALLEL_STREAM:
+                return transactions.parallelStream()
+                        .filter(t -> t.getAmount() > threshold)
+                        .findFirst();
+            case FORK_JOIN:
+                return findWhere(randomAccess(transactions), threshold, false);
+            default:
+                return transactions.stream()
+                        .filter(t -> t.getAmount() > threshold)
+                        .findFirst();
+        }
+    }
+
+    /**
+     * Like {@link #findHighValueTransaction(List, double)}, but returns any
+     * matching transaction rather than the first one.
+     * In parallel modes this avoids the cost of respecting encounter order.
+     * Demonstrates: findAny.
+     *
+     * @param transactions List of transactions
+     * @param threshold    Minimum amount to consider "high-value"
+     * @return Optional containing a matching transaction, empty otherwise
+     */
+    public Optional<Transaction> findAnyHighValueTransaction(List<Transaction> transactions, double threshold) {
+        switch (mode.getKind()) {
+            case PARALLEL_STREAM:
+                return transactions.parallelStream()
+                        .filter(t -> t.getAmount() > threshold)
+                        .findAny();
+            case FORK_JOIN:
+                return findWhere(randomAccess(transactions), threshold, true);
+            default:
+                return transactions.stream()
+                        .filter(t -> t.getAmount() > threshold)
+                        .findAny();
+        }
+    }
+
+    /**
+     * Indexed variant of {@link #findHighValueTransaction(List, double)}:
+     * answers in O(log n) from a prebuilt HighValueIndex instead of scanning.
+     *
+     * @param index     Index over the transactions
+     * @param threshold Minimum amount to consider "high-value"
+     * @return Optional containing the first matching transaction, empty otherwise
+     */
+    public Optional<Transaction> findHighValueTransaction(HighValueIndex index, double threshold) {
+        return index.findFirstAbove(threshold);
+    }
+
+    // --- Columnar overloads (TransactionBatch) ---
+
+    /**
+     * Columnar variant of {@link #calculateTotalInCurrency(List, String)}.
+     * The currency is resolved to its dictionary code once, so the loop only
+     * compares shorts and adds doubles.
+     *
+     * @param batch          Columnar batch of transactions
+     * @param targetCurrency The currency to filter by
+     * @return Total amount in that currency
+     */
+    public double calculateTotalInCurrency(TransactionBatch batch, String targetCurrency) {
+        int code = batch.dictionary().codeOf(targetCurrency);
+        if (code == CurrencyDictionary.UNKNOWN) {
+            return 0.0;
+        }
+        double[] amounts = batch.amounts();
+        short[] codes = batch.currencyCodes();
+        return sumWhere(batch.size(), i -> codes[i] == code, i -> amounts[i]);
+    }
+
+    /**
+     * Columnar variant of {@link #findHighValueTransaction(List, double)}.
+     * Only the matching row (if any) is materialized into a Transaction.
+     *
+     * @param batch     Columnar batch of transactions
+     * @param threshold Minimum amount to consider "high-value"
+     * @return Optional containing the first matching transaction, empty otherwise
+     */
+    public Optional<Transaction> findHighValueTransaction(TransactionBatch batch, double threshold) {
+        double[] amounts = batch.amounts();
+        int index = indexWhere(batch.size(), i -> amounts[i] > threshold, false);
+        return index < 0 ? Optional.empty() : Optional.of(batch.transactionAt(index));
+    }
+
+    /**
+     * Columnar variant of {@link #findAnyHighValueTransaction(List, double)}.
+     *
+     * @param batch     Columnar batch of transactions
+     * @param threshold Minimum amount to consider "high-value"
+     * @return Optional containing a matching transaction, empty otherwise
+     */
+    public Optional<Transaction> findAnyHighValueTransaction(TransactionBatch batch, double threshold) {
+        double[] amounts = batch.amounts();
+        int index = indexWhere(batch.size(), i -> amounts[i] > threshold, true);
+        return index < 0 ? Optional.empty() : Optional.of(batch.transactionAt(index));
+    }
+
+    /**
+     * Columnar variant of {@link #summarizeByCurrency(List)}.
+     *
+     * @param batch Columnar batch of transactions
+     * @return Per-currency statistics
+     */
+    public CurrencyStatistics summarizeByCurrency(TransactionBatch batch) {
+        return CurrencyStatistics.of(batch);
+    }
+
+    /**
+     * Collects the row indices of all transactions in a currency.
+     * Callers get positions into the batch instead of copied objects.
+     *
+     * @param batch          Columnar batch of transactions
+     * @param targetCurrency The currency to filter by
+     * @return Indices of matching rows, in batch order
+     */
+    public int[] filterByCurrency(TransactionBatch batch, String targetCurrency) {
+        int code = batch.dictionary().codeOf(targetCurrency);
+        if (code == CurrencyDictionary.UNKNOWN) {
+            return new int[0];
+        }
+        short[] codes = batch.currencyCodes();
+        int size = batch.size();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (codes[i] == code) {
+                count++;
+            }
+        }
+        int[] indices = new int[count];
+        int next = 0;
+        for (int i = 0; i < size && next < count; i++) {
+            if (codes[i] == code) {
+                indices[next++] = i;
+            }
+        }
+        return indices;
+    }
+
+    // --- Execution-mode plumbing ---
+
+    private <R> R collect(List<Transaction> transactions, Collector<? super Transaction, ?, R> collector) {
+        switch (mode.getKind()) {
+            case PARALLEL_STREAM:
+                return transactions.parallelStream().collect(collector);
+            case FORK_JOIN:
+                // A parallel stream started from inside a ForkJoinPool runs in that pool
+                return mode.getPool().submit(() -> transactions.parallelStream().collect(collector)).join();
+            default:
+                return transactions.stream().collect(collector);
+        }
+    }
+
+    private Optional<Transaction> findWhere(List<Transaction> list, double threshold, boolean any) {
+        int index = indexWhere(list.size(), i -> list.get(i).getAmount() > threshold, any);
+        return index < 0 ? Optional.empty() : Optional.of(list.get(index));
+    }
+
+    private double sumWhere(int size, IntPredicate filter, IntToDoubleFunction amount) {
+        switch (mode.getKind()) {
+            case PARALLEL_STREAM:
+                return IntStream.range(0, size).parallel()
+                        .filter(filter)
+                        .mapToDouble(amount)
+                        .collect(CompensatedSum::new, CompensatedSum::add, CompensatedSum::combine)
+                        .sum();
+            case FORK_JOIN:
+                return mode.getPool()
+                        .invoke(new SumTask(filter, amount, 0, size, mode.getSplitThreshold()))
+                        .sum();
+            default:
+                CompensatedSum sum = new CompensatedSum();
+                for (int i = 0; i < size; i++) {
+                    if (filter.test(i)) {
+                        sum.add(amount.applyAsDouble(i));
+                    }
+                }
+                return sum.sum();
+        }
+    }
+
+    /**
+     * @return the matching index (the lowest one unless {@code any}), or -1
+     */
+    private int indexWhere(int size, IntPredicate filter, boolean any) {
+        switch (mode.getKind()) {
+            case PARALLEL_STREAM:
+                IntStream matches = IntStream.range(0, size).parallel().filter(filter);
+                OptionalInt found = any ? matches.findAny() : matches.findFirst();
+                return found.orElse(-1);
+            case FORK_JOIN:
+                AtomicInteger best = new AtomicInteger(NOT_FOUND);
+                mode.getPool().invoke(new FindTask(filter, any, best, 0, size, mode.getSplitThreshold()));
+                return best.get() == NOT_FOUND ? -1 : best.get();
+            default:
+                for (int i = 0; i < size; i++) {
+                    if (filter.test(i)) {
+                        return i;
+                    }
+                }
+                return -1;
+        }
+    }
+
+    private static <T> List<T> randomAccess(List<T> list) {
+        return list instanceof RandomAccess ? list : new ArrayList<>(list);
+    }
+
+    /**
+     * Sums a range by halving it until it fits the threshold. Left and right
+     * halves are always combined in the same order, so the result is
+     * independent of thread scheduling.
+     */
+    @SuppressWarnings("serial")
+    private static final class SumTask extends RecursiveTask<CompensatedSum> {
+        private final IntPredicate filter;
+        private final IntToDoubleFunction amount;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SumTask(IntPredicate filter, IntToDoubleFunction amount, int from, int to, int threshold) {
+            this.filter = filter;
+            this.amount = amount;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected CompensatedSum compute() {
+            if (to - from <= threshold) {
+                CompensatedSum sum = new CompensatedSum();
+                for (int i = from; i < to; i++) {
+                    if (filter.test(i)) {
+                        sum.add(amount.applyAsDouble(i));
+                    }
+                }
+                return sum;
+            }
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(filter, amount, from, mid, threshold);
+            left.fork();
+            CompensatedSum right = new SumTask(filter, amount, mid, to, threshold).compute();
+            return left.join().combine(right);
+        }
+    }
+
+    /**
+     * Searches a range for a match, publishing the lowest index found so far in
+     * {@code best}. Subranges that cannot improve on it are skipped; in "any"
+     * mode every task stops as soon as something was found.
+     */
+    @SuppressWarnings("serial")
+    private static final class FindTask extends RecursiveAction {
+        private final IntPredicate filter;
+        private final boolean any;
+        private final AtomicInteger best;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        FindTask(IntPredicate filter, boolean any, AtomicInteger best, int from, int to, int threshold) {
+            this.filter = filter;
+            this.any = any;
+            this.best = best;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        private boolean settled(int index) {
+            int current = best.get();
+            return any ? current != NOT_FOUND : current <= index;
+        }
+
+        @Override
+        protected void compute() {
+            if (settled(from)) {
+                return;
+            }
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    if (settled(i)) {
+                        return;
+                    }
+                    if (filter.test(i)) {
+                        best.accumulateAndGet(i, Math::min);
+                        return;
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FindTask(filter, any, best, from, mid, threshold),
+                    new FindTask(filter, any, best, mid, to, threshold));
+        }
     }
 }
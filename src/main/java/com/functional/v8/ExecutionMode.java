@@ -0,0 +1,84 @@
+package com.functional.v8;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Selects how DataProcessingPipeline executes its operations.
+ *
+ * - SEQUENTIAL: a plain sequential stream (the default).
+ * - PARALLEL_STREAM: a parallel stream on the common ForkJoinPool.
+ * - FORK_JOIN: explicit fork/join tasks on a caller-supplied pool, splitting
+ * ranges until they are no larger than the split threshold.
+ *
+ * Because FORK_JOIN splits at fixed positions derived only from the input size
+ * and the threshold, the order in which partial sums are combined is the same
+ * on every run and every machine.
+ */
+public final class ExecutionMode {
+
+    public enum Kind {
+        SEQUENTIAL, PARALLEL_STREAM, FORK_JOIN
+    }
+
+    /** Default leaf size for fork/join tasks. */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 4096;
+
+    private static final ExecutionMode SEQUENTIAL = new ExecutionMode(Kind.SEQUENTIAL, null, 0);
+    private static final ExecutionMode PARALLEL = new ExecutionMode(Kind.PARALLEL_STREAM, null, 0);
+
+    private final Kind kind;
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+
+    private ExecutionMode(Kind kind, ForkJoinPool pool, int splitThreshold) {
+        this.kind = kind;
+        this.pool = pool;
+        this.splitThreshold = splitThreshold;
+    }
+
+    public static ExecutionMode sequential() {
+        return SEQUENTIAL;
+    }
+
+    public static ExecutionMode parallel() {
+        return PARALLEL;
+    }
+
+    public static ExecutionMode forkJoin(ForkJoinPool pool) {
+        return forkJoin(pool, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    public static ExecutionMode forkJoin(ForkJoinPool pool, int splitThreshold) {
+        if (pool == null) {
+            throw new NullPointerException("pool");
+        }
+        if (splitThreshold < 1) {
+            throw new IllegalArgumentException("splitThreshold must be positive: " + splitThreshold);
+        }
+        return new ExecutionMode(Kind.FORK_JOIN, pool, splitThreshold);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the pool used in FORK_JOIN mode, or null for the other modes
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the leaf size used in FORK_JOIN mode, or 0 for the other modes
+     */
+    public int getSplitThreshold() {
+        return splitThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.FORK_JOIN ? "ExecutionMode{FORK_JOIN, threshold=" + splitThreshold + "}"
+                : "ExecutionMode{" + kind + "}";
+    }
+}
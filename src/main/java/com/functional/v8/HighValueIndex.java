@@ -0,0 +1,148 @@
+package com.functional.v8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * A prebuilt index answering "which transactions exceed X?" without a linear
+ * scan.
+ *
+ * Two structures are maintained over the transactions, in arrival order:
+ * - a prefix-maximum array: prefixMax[i] is the largest amount among the first
+ * i + 1 transactions. It never decreases, so the first transaction above a
+ * threshold is found with a binary search in O(log n).
+ * - a view sorted by amount, so all transactions above a threshold form a
+ * suffix found in O(log n), then returned in arrival order.
+ *
+ * Appends are O(1) for the prefix maximum. The sorted view absorbs new
+ * transactions lazily on the next findAllAbove call, merging them in one pass.
+ * Amounts that are NaN never match, as with {@code amount > threshold}.
+ *
+ * Not thread-safe; build the index once per dataset, or guard appends.
+ */
+public final class HighValueIndex {
+
+    private DataProcessingPipeline.Transaction[] transactions;
+    private double[] prefixMax;
+    private int size;
+
+    // Sorted view over the first `absorbed` transactions, NaN amounts excluded
+    private double[] sortedAmounts = new double[0];
+    private int[] sortedIndices = new int[0];
+    private int absorbed;
+
+    public HighValueIndex() {
+        this.transactions = new DataProcessingPipeline.Transaction[16];
+        this.prefixMax = new double[16];
+    }
+
+    public static HighValueIndex of(List<DataProcessingPipeline.Transaction> transactions) {
+        HighValueIndex index = new HighValueIndex();
+        for (DataProcessingPipeline.Transaction t : transactions) {
+            index.add(t);
+        }
+        return index;
+    }
+
+    public void add(DataProcessingPipeline.Transaction transaction) {
+        if (size == transactions.length) {
+            transactions = Arrays.copyOf(transactions, size * 2);
+            prefixMax = Arrays.copyOf(prefixMax, size * 2);
+        }
+        double amount = transaction.getAmount();
+        double previous = size == 0 ? Double.NEGATIVE_INFINITY : prefixMax[size - 1];
+        transactions[size] = transaction;
+        prefixMax[size] = Double.isNaN(amount) ? previous : Math.max(previous, amount);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Same result as DataProcessingPipeline.findHighValueTransaction over the
+     * indexed list, in O(log n).
+     *
+     * @return the earliest transaction whose amount is strictly greater than
+     *         the threshold
+     */
+    public Optional<DataProcessingPipeline.Transaction> findFirstAbove(double threshold) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prefixMax[mid] > threshold) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low < size ? Optional.of(transactions[low]) : Optional.empty();
+    }
+
+    /**
+     * @return every transaction whose amount is strictly greater than the
+     *         threshold, in arrival order
+     */
+    public List<DataProcessingPipeline.Transaction> findAllAbove(double threshold) {
+        mergePending();
+        int low = 0;
+        int high = sortedIndices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedAmounts[mid] > threshold) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        int[] matches = Arrays.copyOfRange(sortedIndices, low, sortedIndices.length);
+        Arrays.sort(matches);
+        List<DataProcessingPipeline.Transaction> result = new ArrayList<>(matches.length);
+        for (int index : matches) {
+            result.add(transactions[index]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Sorts the transactions appended since the last merge and merges them
+     * into the sorted view.
+     */
+    private void mergePending() {
+        if (absorbed == size) {
+            return;
+        }
+        int[] pending = IntStream.range(absorbed, size)
+                .filter(i -> !Double.isNaN(transactions[i].getAmount()))
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> transactions[i].getAmount()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int existing = sortedIndices.length;
+        double[] amounts = new double[existing + pending.length];
+        int[] indices = new int[existing + pending.length];
+        int a = 0;
+        int b = 0;
+        for (int k = 0; k < indices.length; k++) {
+            boolean takeExisting = b == pending.length
+                    || (a < existing && sortedAmounts[a] <= transactions[pending[b]].getAmount());
+            if (takeExisting) {
+                amounts[k] = sortedAmounts[a];
+                indices[k] = sortedIndices[a++];
+            } else {
+                indices[k] = pending[b++];
+                amounts[k] = transactions[indices[k]].getAmount();
+            }
+        }
+        sortedAmounts = amounts;
+        sortedIndices = indices;
+        absorbed = size;
+    }
+}
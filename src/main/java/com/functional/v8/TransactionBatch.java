@@ -0,0 +1,131 @@
+package com.functional.v8;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A columnar (structure-of-arrays) store for transactions.
+ *
+ * Instead of a List of Transaction objects, each field lives in its own array:
+ * - amounts in a double[]
+ * - currencies dictionary-encoded into a short[] (see CurrencyDictionary)
+ * - ids in a String[] whose entries are de-duplicated through an intern table
+ *
+ * Aggregations over a batch become tight loops over primitive arrays with no
+ * pointer chasing and no per-row allocation.
+ */
+public final class TransactionBatch {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final CurrencyDictionary dictionary = new CurrencyDictionary();
+    private final Map<String, String> idTable = new HashMap<>();
+
+    private String[] ids;
+    private double[] amounts;
+    private short[] currencyCodes;
+    private int size;
+
+    public TransactionBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TransactionBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.ids = new String[capacity];
+        this.amounts = new double[capacity];
+        this.currencyCodes = new short[capacity];
+    }
+
+    /**
+     * Builds a batch from a list of transactions.
+     */
+    public static TransactionBatch of(List<DataProcessingPipeline.Transaction> transactions) {
+        TransactionBatch batch = new TransactionBatch(transactions.size());
+        for (DataProcessingPipeline.Transaction t : transactions) {
+            batch.add(t);
+        }
+        return batch;
+    }
+
+    public void add(DataProcessingPipeline.Transaction transaction) {
+        add(transaction.getId(), transaction.getAmount(), transaction.getCurrency());
+    }
+
+    public void add(String id, double amount, String currency) {
+        if (size == amounts.length) {
+            grow();
+        }
+        String interned = idTable.get(id);
+        if (interned == null) {
+            idTable.put(id, id);
+            interned = id;
+        }
+        ids[size] = interned;
+        amounts[size] = amount;
+        currencyCodes[size] = (short) dictionary.encode(currency);
+        size++;
+    }
+
+    private void grow() {
+        int capacity = amounts.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        currencyCodes = Arrays.copyOf(currencyCodes, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String idAt(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    public double amountAt(int index) {
+        checkIndex(index);
+        return amounts[index];
+    }
+
+    public int currencyCodeAt(int index) {
+        checkIndex(index);
+        return currencyCodes[index];
+    }
+
+    public String currencyAt(int index) {
+        return dictionary.currencyOf(currencyCodeAt(index));
+    }
+
+    /**
+     * Materializes a single row back into a Transaction object.
+     */
+    public DataProcessingPipeline.Transaction transactionAt(int index) {
+        checkIndex(index);
+        return new DataProcessingPipeline.Transaction(ids[index], amounts[index],
+                dictionary.currencyOf(currencyCodes[index]));
+    }
+
+    public CurrencyDictionary dictionary() {
+        return dictionary;
+    }
+
+    // Package-private raw column access for tight loops in the pipeline.
+    // Only the first size() entries are meaningful.
+
+    double[] amounts() {
+        return amounts;
+    }
+
+    short[] currencyCodes() {
+        return currencyCodes;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.functional.v8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads transactions lazily from memory-mapped files.
+ *
+ * The file is mapped through FileChannel.map in windows of at most
+ * {@link #DEFAULT_WINDOW_SIZE} bytes, so the data stays off-heap and the heap
+ * only ever holds the rows currently being processed. Rows are exposed as a
+ * Stream backed by a Spliterator that splits the file into byte ranges, which
+ * lets parallel streams spread the parsing over all cores.
+ *
+ * Supported formats:
+ * - CSV: one {@code id,amount,currency} row per line ('\n' or "\r\n"), no header.
+ * - BINARY: fixed-width {@link #RECORD_SIZE}-byte records: a zero-padded
+ * US-ASCII id ({@link #ID_BYTES} bytes), a big-endian IEEE 754 double amount,
+ * and a zero-padded US-ASCII currency ({@link #CURRENCY_BYTES} bytes).
+ *
+ * Streams hold the file open until closed, so use them in try-with-resources.
+ */
+public final class TransactionFileReader {
+
+    public enum Format {
+        CSV, BINARY
+    }
+
+    public static final int ID_BYTES = 16;
+    public static final int CURRENCY_BYTES = 8;
+    public static final int RECORD_SIZE = ID_BYTES + Double.BYTES + CURRENCY_BYTES;
+
+    /** Largest region mapped at once. */
+    public static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Smallest allowed window. Every remap creates a mapping that is only
+     * released at GC, so tiny windows over a large file can exhaust the
+     * process's mapping limit (vm.max_map_count on Linux).
+     */
+    public static final long MIN_WINDOW_SIZE = 1024 * 1024;
+
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final long MIN_CSV_SPLIT_BYTES = 64 * 1024;
+    private static final long MIN_BINARY_SPLIT_RECORDS = 2048;
+
+    /** Receives parsed rows without requiring a Transaction object per row. */
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(String id, double amount, String currency);
+    }
+
+    private final long windowSize;
+
+    public TransactionFileReader() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize largest region to map at once; at least
+     *                   {@link #MIN_WINDOW_SIZE}
+     */
+    public TransactionFileReader(long windowSize) {
+        if (windowSize < MIN_WINDOW_SIZE) {
+            throw new IllegalArgumentException("windowSize must be at least " + MIN_WINDOW_SIZE + ": " + windowSize);
+        }
+        this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Opens a lazily-parsed stream of transactions. Call {@code .parallel()}
+     * on the result to parse the file on several cores.
+     *
+     * @throws IOException if the file cannot be opened, or a binary file is
+     *                     not a whole number of records
+     */
+    public Stream<DataProcessingPipeline.Transaction> stream(Path file, Format format) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            RangeSpliterator spliterator = open(channel, format);
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a whole file straight into a columnar batch without creating a
+     * Transaction per row.
+     */
+    public TransactionBatch readBatch(Path file, Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            RangeSpliterator spliterator = open(channel, format);
+            long estimate = spliterator.estimateSize();
+            TransactionBatch batch = new TransactionBatch(format == Format.BINARY ? (int) estimate : 1024);
+            try {
+                while (spliterator.advance(batch::add)) {
+                    // keep reading
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Writes transactions in the fixed-width BINARY format.
+     */
+    public static void writeBinary(Path file, List<DataProcessingPipeline.Transaction> transactions)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            for (DataProcessingPipeline.Transaction t : transactions) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    flush(channel, buffer);
+                }
+                putPadded(buffer, t.getId(), ID_BYTES);
+                buffer.putDouble(t.getAmount());
+                putPadded(buffer, t.getCurrency(), CURRENCY_BYTES);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putPadded(ByteBuffer buffer, String value, int width) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > width) {
+            throw new IllegalArgumentException("'" + value + "' does not fit in " + width + " bytes");
+        }
+        buffer.put(bytes);
+        for (int i = bytes.length; i < width; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private RangeSpliterator open(FileChannel channel, Format format) throws IOException {
+        long size = channel.size();
+        if (format == Format.BINARY) {
+            if (size % RECORD_SIZE != 0) {
+                throw new IOException("Binary file size " + size + " is not a multiple of " + RECORD_SIZE);
+            }
+            return new BinarySpliterator(new Window(channel, size, windowSize), 0, size / RECORD_SIZE);
+        }
+        return new CsvSpliterator(new Window(channel, size, windowSize), 0, size);
+    }
+
+    /**
+     * A sliding read-only mapping over part of the file. Each spliterator owns
+     * its own window, so no state is shared between threads.
+     */
+    private static final class Window {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long windowSize;
+        private MappedByteBuffer buffer;
+        private long base;
+        private int limit;
+
+        Window(FileChannel channel, long fileSize, long windowSize) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.windowSize = windowSize;
+        }
+
+        Window copy() {
+            return new Window(channel, fileSize, windowSize);
+        }
+
+        long fileSize() {
+            return fileSize;
+        }
+
+        /** Makes sure [position, position + length) is mapped and returns its offset. */
+        private int ensure(long position, int length) {
+            if (buffer == null || position < base || position + length > base + limit) {
+                long size = Math.min(windowSize, fileSize - position);
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                base = position;
+                limit = (int) size;
+            }
+            return (int) (position - base);
+        }
+
+        byte byteAt(long position) {
+            int offset = ensure(position, 1);
+            return buffer.get(offset);
+        }
+
+        double doubleAt(long position) {
+            int offset = ensure(position, Double.BYTES);
+            return buffer.getDouble(offset);
+        }
+
+        /** Reads a zero-padded ASCII field. */
+        String asciiAt(long position, int width, byte[] scratch) {
+            int offset = ensure(position, width);
+            int length = 0;
+            while (length < width) {
+                byte b = buffer.get(offset + length);
+                if (b == 0) {
+                    break;
+                }
+                scratch[length++] = b;
+            }
+            return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private abstract static class RangeSpliterator implements Spliterator<DataProcessingPipeline.Transaction> {
+
+        abstract boolean advance(RowSink sink);
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DataProcessingPipeline.Transaction> action) {
+            return advance((id, amount, currency) -> action
+                    .accept(new DataProcessingPipeline.Transaction(id, amount, currency)));
+        }
+    }
+
+    /** Owns records [from, to). */
+    private static final class BinarySpliterator extends RangeSpliterator {
+        private final Window window;
+        private final byte[] scratch = new byte[Math.max(ID_BYTES, CURRENCY_BYTES)];
+        private long from;
+        private final long to;
+
+        BinarySpliterator(Window window, long from, long to) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        boolean advance(RowSink sink) {
+            if (from >= to) {
+                return false;
+            }
+            long position = from * RECORD_SIZE;
+            String id = window.asciiAt(position, ID_BYTES, scratch);
+            double amount = window.doubleAt(position + ID_BYTES);
+            String currency = window.asciiAt(position + ID_BYTES + Double.BYTES, CURRENCY_BYTES, scratch);
+            from++;
+            sink.accept(id, amount, currency);
+            return true;
+        }
+
+        @Override
+        public Spliterator<DataProcessingPipeline.Transaction> trySplit() {
+            if (to - from < 2 * MIN_BINARY_SPLIT_RECORDS) {
+                return null;
+            }
+            long mid = (from + to) >>> 1;
+            BinarySpliterator prefix = new BinarySpliterator(window.copy(), from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Owns the lines that start in byte range [from, to). {@code from} is
+     * always at the start of a line, so a line that crosses {@code to} is read
+     * completely by this spliterator and skipped by its neighbour.
+     */
+    private static final class CsvSpliterator extends RangeSpliterator {
+        private final Window window;
+        private byte[] line = new byte[256];
+        private long from;
+        private final long to;
+
+        CsvSpliterator(Window window, long from, long to) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        boolean advance(RowSink sink) {
+            long fileSize = window.fileSize();
+            while (from < to) {
+                int length = 0;
+                long position = from;
+                while (position < fileSize) {
+                    byte b = window.byteAt(position++);
+                    if (b == '\n') {
+                        break;
+                    }
+                    if (length == line.length) {
+                        if (length >= MAX_LINE_LENGTH) {
+                            throw new UncheckedIOException(
+                                    new IOException("Line at offset " + from + " exceeds " + MAX_LINE_LENGTH + " bytes"));
+                        }
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+                long lineStart = from;
+                from = position;
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                if (length > 0) {
+                    parse(lineStart, length, sink);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void parse(long offset, int length, RowSink sink) {
+            int firstComma = indexOf(',', 0, length);
+            int secondComma = firstComma < 0 ? -1 : indexOf(',', firstComma + 1, length);
+            if (secondComma < 0) {
+                throw new UncheckedIOException(new IOException("Malformed CSV row at offset " + offset));
+            }
+            String id = new String(line, 0, firstComma, StandardCharsets.US_ASCII);
+            String amountText = new String(line, firstComma + 1, secondComma - firstComma - 1,
+                    StandardCharsets.US_ASCII);
+            String currency = new String(line, secondComma + 1, length - secondComma - 1, StandardCharsets.US_ASCII);
+            double amount;
+            try {
+                amount = Double.parseDouble(amountText);
+            } catch (NumberFormatException e) {
+                throw new UncheckedIOException(new IOException("Bad amount '" + amountText + "' at offset " + offset, e));
+            }
+            sink.accept(id, amount, currency);
+        }
+
+        private int indexOf(char c, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (line[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Spliterator<DataProcessingPipeline.Transaction> trySplit() {
+            if (to - from < 2 * MIN_CSV_SPLIT_BYTES) {
+                return null;
+            }
+            // The suffix starts at the first line beginning at or after the midpoint
+            long split = (from + to) >>> 1;
+            while (split < to && window.byteAt(split - 1) != '\n') {
+                split++;
+            }
+            if (split >= to) {
+                return null;
+            }
+            CsvSpliterator prefix = new CsvSpliterator(window.copy(), from, split);
+            from = split;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.functional.v8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Incremental per-currency totals over a live feed of transactions.
+ *
+ * Instead of re-running calculateTotalInCurrency over everything received so
+ * far, each incoming transaction updates running totals, and a snapshot can be
+ * taken at any moment without rescanning history.
+ *
+ * Window kinds:
+ * - tumbling time: fixed, non-overlapping periods (e.g. every minute)
+ * - sliding time: the last {@code size} millis, advancing every {@code slide}
+ * - tumbling count: consecutive groups of {@code size} transactions
+ * - sliding count: the last {@code size} transactions
+ *
+ * Time windows are split into panes of {@code slide} millis. A transaction
+ * updates its pane and the running totals; when the window moves forward, the
+ * expired pane is subtracted once. Updates are therefore O(1), plus an
+ * amortized O(currencies) per elapsed pane. Transactions older than the
+ * current window are dropped and counted (see {@link #getDroppedCount()}).
+ *
+ * All public methods are synchronized, so a feed thread can call accept while
+ * dashboards take snapshots.
+ */
+public abstract class WindowedAggregator {
+
+    final CurrencyDictionary dictionary = new CurrencyDictionary();
+    private CompensatedSum[] totals = newSums(4);
+    private long[] counts = new long[4];
+    private long dropped;
+
+    WindowedAggregator() {
+    }
+
+    public static WindowedAggregator tumblingTime(long sizeMillis) {
+        return new PaneAggregator(sizeMillis, sizeMillis, true);
+    }
+
+    /**
+     * @param sizeMillis  window length; must be a multiple of slideMillis
+     * @param slideMillis how far the window advances at a time
+     */
+    public static WindowedAggregator slidingTime(long sizeMillis, long slideMillis) {
+        return new PaneAggregator(sizeMillis, slideMillis, true);
+    }
+
+    public static WindowedAggregator tumblingCount(int size) {
+        return new PaneAggregator(size, size, false);
+    }
+
+    public static WindowedAggregator slidingCount(int size) {
+        return new RingAggregator(size);
+    }
+
+    /**
+     * Adds a transaction observed at the given event time. Count windows
+     * ignore the timestamp.
+     */
+    public final synchronized void accept(DataProcessingPipeline.Transaction transaction, long timestampMillis) {
+        int code = dictionary.encode(transaction.getCurrency());
+        ensureCapacity(code + 1);
+        add(code, transaction.getAmount(), timestampMillis);
+    }
+
+    /**
+     * Adds a transaction observed now.
+     */
+    public final void accept(DataProcessingPipeline.Transaction transaction) {
+        accept(transaction, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the totals of the window ending at {@code nowMillis}, first
+     * expiring anything that has fallen out of it.
+     */
+    public final synchronized Snapshot snapshot(long nowMillis) {
+        advanceTo(nowMillis);
+        int size = dictionary.size();
+        String[] currencies = new String[size];
+        double[] sums = new double[size];
+        for (int code = 0; code < size; code++) {
+            currencies[code] = dictionary.currencyOf(code);
+            sums[code] = totals[code].sum();
+        }
+        return new Snapshot(currencies, sums, Arrays.copyOf(counts, size));
+    }
+
+    public final Snapshot snapshot() {
+        return snapshot(System.currentTimeMillis());
+    }
+
+    /**
+     * @return how many late transactions were ignored because their window had
+     *         already expired
+     */
+    public final synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    abstract void add(int code, double amount, long timestamp);
+
+    abstract void advanceTo(long timestamp);
+
+    abstract void grow(int capacity);
+
+    final void drop() {
+        dropped++;
+    }
+
+    final void addToTotal(int code, double amount) {
+        counts[code]++;
+        totals[code].add(amount);
+    }
+
+    /** Removes one expired transaction from the running total. */
+    final void removeFromTotal(int code, double amount) {
+        if (--counts[code] == 0) {
+            // Nothing left in the window: discard any rounding residue
+            totals[code].reset();
+        } else {
+            totals[code].subtract(amount);
+        }
+    }
+
+    /** Removes an expired pane of {@code count} transactions from the running total. */
+    final void removeFromTotal(int code, long count, CompensatedSum pane) {
+        counts[code] -= count;
+        if (counts[code] == 0) {
+            totals[code].reset();
+        } else {
+            totals[code].subtract(pane);
+        }
+    }
+
+    /** Copies the array to the new capacity, filling the new slots with empty sums. */
+    static CompensatedSum[] growSums(CompensatedSum[] sums, int capacity) {
+        CompensatedSum[] grown = Arrays.copyOf(sums, capacity);
+        for (int i = sums.length; i < capacity; i++) {
+            grown[i] = new CompensatedSum();
+        }
+        return grown;
+    }
+
+    static CompensatedSum[] newSums(int capacity) {
+        return growSums(new CompensatedSum[0], capacity);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > counts.length) {
+            int newCapacity = Math.max(capacity, counts.length * 2);
+            totals = growSums(totals, newCapacity);
+            counts = Arrays.copyOf(counts, newCapacity);
+            grow(newCapacity);
+        }
+    }
+
+    /**
+     * An immutable view of the window totals at the time it was taken.
+     */
+    public static final class Snapshot {
+        private final String[] currencies;
+        private final double[] totals;
+        private final long[] counts;
+
+        Snapshot(String[] currencies, double[] totals, long[] counts) {
+            this.currencies = currencies;
+            this.totals = totals;
+            this.counts = counts;
+        }
+
+        /**
+         * Currencies with at least one transaction in the window.
+         */
+        public List<String> getCurrencies() {
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < currencies.length; i++) {
+                if (counts[i] > 0) {
+                    result.add(currencies[i]);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        public double getTotal(String currency) {
+            int index = indexOf(currency);
+            return index < 0 ? 0.0 : totals[index];
+        }
+
+        public long getCount(String currency) {
+            int index = indexOf(currency);
+            return index < 0 ? 0 : counts[index];
+        }
+
+        private int indexOf(String currency) {
+            for (int i = 0; i < currencies.length; i++) {
+                if (currencies[i].equals(currency)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Time windows and tumbling count windows. For count windows the
+     * "timestamp" is the sequence number of the transaction.
+     */
+    private static final class PaneAggregator extends WindowedAggregator {
+        private final long slide;
+        private final boolean timeBased;
+        private final CompensatedSum[][] paneTotals;
+        private final long[][] paneCounts;
+        private long currentPane = Long.MIN_VALUE;
+        private long sequence;
+
+        PaneAggregator(long size, long slide, boolean timeBased) {
+            if (size <= 0 || slide <= 0 || slide > size || size % slide != 0) {
+                throw new IllegalArgumentException(
+                        "size must be a positive multiple of slide: size=" + size + ", slide=" + slide);
+            }
+            long panes = size / slide;
+            if (panes > 1 << 16) {
+                throw new IllegalArgumentException("Too many panes: " + panes);
+            }
+            this.slide = slide;
+            this.timeBased = timeBased;
+            this.paneTotals = new CompensatedSum[(int) panes][];
+            this.paneCounts = new long[(int) panes][4];
+            for (int i = 0; i < paneTotals.length; i++) {
+                paneTotals[i] = newSums(4);
+            }
+        }
+
+        @Override
+        void add(int code, double amount, long timestamp) {
+            long pane = Math.floorDiv(timeBased ? timestamp : sequence++, slide);
+            advancePane(pane);
+            if (pane <= currentPane - paneCounts.length) {
+                drop();
+                return;
+            }
+            int slot = slot(pane);
+            paneTotals[slot][code].add(amount);
+            paneCounts[slot][code]++;
+            addToTotal(code, amount);
+        }
+
+        @Override
+        void advanceTo(long timestamp) {
+            if (timeBased) {
+                advancePane(Math.floorDiv(timestamp, slide));
+            }
+        }
+
+        private void advancePane(long pane) {
+            if (currentPane == Long.MIN_VALUE) {
+                currentPane = pane;
+                return;
+            }
+            if (pane <= currentPane) {
+                return;
+            }
+            // Expire at most one full ring; older panes are already empty
+            long first = Math.max(currentPane + 1, pane - paneCounts.length + 1);
+            for (long p = first; p <= pane; p++) {
+                evict(slot(p));
+            }
+            currentPane = pane;
+        }
+
+        private void evict(int slot) {
+            long[] slotCounts = paneCounts[slot];
+            for (int code = 0; code < dictionary.size(); code++) {
+                if (slotCounts[code] > 0) {
+                    removeFromTotal(code, slotCounts[code], paneTotals[slot][code]);
+                    slotCounts[code] = 0;
+                    paneTotals[slot][code].reset();
+                }
+            }
+        }
+
+        private int slot(long pane) {
+            return (int) Math.floorMod(pane, (long) paneCounts.length);
+        }
+
+        @Override
+        void grow(int capacity) {
+            for (int i = 0; i < paneCounts.length; i++) {
+                paneTotals[i] = growSums(paneTotals[i], capacity);
+                paneCounts[i] = Arrays.copyOf(paneCounts[i], capacity);
+            }
+        }
+    }
+
+    /**
+     * Sliding count window: a ring buffer of the last {@code size}
+     * transactions. Each new transaction replaces, and subtracts, the oldest.
+     */
+    private static final class RingAggregator extends WindowedAggregator {
+        private final int[] codes;
+        private final double[] amounts;
+        private int next;
+        private boolean full;
+
+        RingAggregator(int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("size must be positive: " + size);
+            }
+            this.codes = new int[size];
+            this.amounts = new double[size];
+        }
+
+        @Override
+        void add(int code, double amount, long timestamp) {
+            if (full) {
+                removeFromTotal(codes[next], amounts[next]);
+            }
+            codes[next] = code;
+            amounts[next] = amount;
+            addToTotal(code, amount);
+            next++;
+            if (next == codes.length) {
+                next = 0;
+                full = true;
+            }
+        }
+
+        @Override
+        void advanceTo(long timestamp) {
+            // Count windows do not expire with time
+        }
+
+        @Override
+        void grow(int capacity) {
+            // Ring entries store codes, nothing to resize
+        }
+    }
+}
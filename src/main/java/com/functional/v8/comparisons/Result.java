@@ -0,0 +1,50 @@
+package com.functional.v8.comparisons;
+
+import java.util.function.Function;
+
+/**
+ * The outcome of an operation that may fail: a Success holding a value, or a
+ * Failure holding the exception.
+ *
+ * Returning failures as values keeps a stream running past bad records,
+ * instead of aborting it with a RuntimeException as the wrap() approach does.
+ *
+ * Note: this borrows sealed interfaces and records from Java 17, so callers
+ * can switch over the two cases exhaustively.
+ *
+ * @param <T> type of the success value
+ */
+public sealed interface Result<T> permits Result.Success, Result.Failure {
+
+    record Success<T>(T value) implements Result<T> {
+    }
+
+    record Failure<T>(Exception error) implements Result<T> {
+    }
+
+    static <T> Result<T> success(T value) {
+        return new Success<>(value);
+    }
+
+    static <T> Result<T> failure(Exception error) {
+        return new Failure<>(error);
+    }
+
+    default boolean isSuccess() {
+        return this instanceof Success;
+    }
+
+    /**
+     * Transforms the value of a Success; a Failure is passed through.
+     */
+    default <R> Result<R> map(Function<? super T, ? extends R> mapper) {
+        if (this instanceof Success<T> s) {
+            return success(mapper.apply(s.value()));
+        }
+        return failure(((Failure<T>) this).error());
+    }
+
+    default T orElse(T fallback) {
+        return this instanceof Success<T> s ? s.value() : fallback;
+    }
+}
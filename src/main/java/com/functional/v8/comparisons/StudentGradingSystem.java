@@ -4,7 +4,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -15,8 +19,12 @@ import java.util.stream.Collectors;
  * class.
  * 2. Functional: Stream API, method references, immutable transformation.
  *
+ * 3. Top-K: bounded heap collector, avoiding the full sort.
+ *
  * Advanced:
  * - Handling checked exceptions in Lambdas using a wrapper.
+ * - Returning failures as Result values, optionally with preallocated
+ * stackless exceptions, so bad records cost no stack trace.
  */
 public class StudentGradingSystem {
 
@@ -92,6 +100,30 @@ public class StudentGradingSystem {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * TOP-K APPROACH: Bounded Heap
+     * Same filter as the imperative version, but instead of sorting every
+     * match, a TopK collector keeps only the best {@code limit} students:
+     * O(n log k) instead of O(n log n), with GPA compared as a primitive double.
+     * The result is a right-sized list, not a view over all matches.
+     */
+    public List<Student> findTopStudentsTopK(List<Student> students, String department, int limit) {
+        return students.stream()
+                .filter(s -> s != null && s.getDepartment().equals(department) && s.getGpa() > 3.5)
+                .collect(TopK.collector(limit, Student::getGpa));
+    }
+
+    /**
+     * Parallel variant of {@link #findTopStudentsTopK}: each thread fills its
+     * own heap and the heaps are merged. Returns the same list as the
+     * sequential version.
+     */
+    public List<Student> findTopStudentsTopKParallel(List<Student> students, String department, int limit) {
+        return students.parallelStream()
+                .filter(s -> s != null && s.getDepartment().equals(department) && s.getGpa() > 3.5)
+                .collect(TopK.collector(limit, Student::getGpa));
+    }
+
     // --- Advanced: Handling Checked Exceptions in Lambdas ---
 
     /**
@@ -136,4 +168,133 @@ public class StudentGradingSystem {
             }
         };
     }
+
+    /**
+     * Functional Interface for predicates that throw.
+     */
+    @FunctionalInterface
+    public interface ThrowingPredicate<T, E extends Exception> {
+        boolean test(T t) throws E;
+    }
+
+    /**
+     * Functional Interface for consumers that throw.
+     */
+    @FunctionalInterface
+    public interface ThrowingConsumer<T, E extends Exception> {
+        void accept(T t) throws E;
+    }
+
+    /**
+     * Predicate counterpart of {@link #wrap}.
+     */
+    public static <T> Predicate<T> wrapPredicate(ThrowingPredicate<T, Exception> throwingPredicate) {
+        return i -> {
+            try {
+                return throwingPredicate.test(i);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    /**
+     * Consumer counterpart of {@link #wrap}.
+     */
+    public static <T> Consumer<T> wrapConsumer(ThrowingConsumer<T, Exception> throwingConsumer) {
+        return i -> {
+            try {
+                throwingConsumer.accept(i);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    /**
+     * Converts a ThrowingFunction into a Function returning a Result.
+     * Unlike {@link #wrap}, a failure does not abort the stream and is not
+     * wrapped in a new RuntimeException.
+     */
+    public static <T, R> Function<T, Result<R>> lift(ThrowingFunction<T, R, Exception> throwingFunction) {
+        return i -> {
+            try {
+                return Result.success(throwingFunction.apply(i));
+            } catch (Exception e) {
+                return Result.failure(e);
+            }
+        };
+    }
+
+    // --- Advanced: Result-based validation without exception cost ---
+
+    /**
+     * How validation failures are represented.
+     * DETAILED allocates an exception with a message and stack trace per failure.
+     * PREALLOCATED reuses {@link #INVALID_GPA}, which has neither a stack trace nor
+     * per-record details, so a failure costs nothing to create.
+     */
+    public enum FailureMode {
+        DETAILED, PREALLOCATED
+    }
+
+    /**
+     * Checked exception for out-of-range GPAs.
+     */
+    public static final class InvalidGpaException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidGpaException(String message) {
+            super(message);
+        }
+
+        private InvalidGpaException(String message, boolean writableStackTrace) {
+            // Suppression disabled too, so the shared instance never accumulates state
+            super(message, null, false, writableStackTrace);
+        }
+    }
+
+    /**
+     * Shared, stackless instance used in {@link FailureMode#PREALLOCATED} mode.
+     */
+    public static final InvalidGpaException INVALID_GPA = new InvalidGpaException("Invalid GPA", false);
+
+    /**
+     * Validates a student's GPA (0.0 to 4.0) without throwing.
+     */
+    public Result<Student> checkGpa(Student s, FailureMode mode) {
+        double gpa = s.getGpa();
+        if (gpa < 0 || gpa > 4.0) {
+            return Result.failure(mode == FailureMode.DETAILED ? new InvalidGpaException("Invalid GPA: " + gpa)
+                    : INVALID_GPA);
+        }
+        return Result.success(s);
+    }
+
+    /**
+     * Result-based counterpart of {@link #findTopStudentsFunctional}: GPAs are
+     * validated with checkGpa, so an out-of-range GPA is skipped instead of
+     * aborting the whole query with a RuntimeException.
+     */
+    public List<Student> findTopStudentsValidated(List<Student> students, String department, int limit) {
+        return students.stream()
+                .filter(s -> s != null && s.getDepartment().equals(department))
+                .filter(s -> checkGpa(s, FailureMode.PREALLOCATED).isSuccess())
+                .filter(s -> s.getGpa() > 3.5)
+                .sorted(Comparator.comparingDouble(Student::getGpa).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Splits a roster into valid (true) and invalid (false) GPAs in one pass,
+     * without stopping at the first bad record. The results are kept, so in
+     * DETAILED mode each Failure still carries its own message.
+     */
+    public Map<Boolean, List<Result<Student>>> partitionByGpaValidity(List<Student> students, FailureMode mode) {
+        return students.stream()
+                .filter(Objects::nonNull)
+                .map(s -> checkGpa(s, mode))
+                .collect(Collectors.partitioningBy(Result::isSuccess));
+    }
 }
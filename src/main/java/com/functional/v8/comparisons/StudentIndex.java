@@ -0,0 +1,164 @@
+package com.functional.v8.comparisons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A precomputed ranking of students, partitioned by department.
+ *
+ * Each department keeps its students in a GPA-descending array next to a
+ * primitive double[] of their GPAs. A top-k query is then a lookup of the
+ * partition and a read of its first k entries: no rescan of the roster, no
+ * String.equals per student and no sort.
+ *
+ * Students with equal GPAs keep their insertion order, so an index built from
+ * a roster answers exactly like findTopStudentsImperative. An updated student
+ * is treated as newly inserted.
+ *
+ * Students are matched by identity on remove/update, as Student does not
+ * override equals. Not thread-safe.
+ */
+public final class StudentIndex {
+
+    /** The GPA cut-off used by StudentGradingSystem. */
+    public static final double DEFAULT_MIN_GPA = 3.5;
+
+    private final Map<String, Partition> partitions = new HashMap<>();
+
+    public static StudentIndex of(List<StudentGradingSystem.Student> roster) {
+        StudentIndex index = new StudentIndex();
+        for (StudentGradingSystem.Student s : roster) {
+            if (s != null) {
+                index.insert(s);
+            }
+        }
+        return index;
+    }
+
+    public void insert(StudentGradingSystem.Student student) {
+        partitions.computeIfAbsent(student.getDepartment(), d -> new Partition()).insert(student);
+    }
+
+    /**
+     * @return true if the student was indexed and has been removed
+     */
+    public boolean remove(StudentGradingSystem.Student student) {
+        Partition partition = partitions.get(student.getDepartment());
+        return partition != null && partition.remove(student);
+    }
+
+    /**
+     * Replaces a student, e.g. after a GPA or department change.
+     *
+     * @throws IllegalArgumentException if {@code current} is not indexed
+     */
+    public void update(StudentGradingSystem.Student current, StudentGradingSystem.Student replacement) {
+        if (!remove(current)) {
+            throw new IllegalArgumentException("Student not indexed: " + current);
+        }
+        insert(replacement);
+    }
+
+    /**
+     * Same result as StudentGradingSystem.findTopStudentsImperative over the
+     * indexed roster.
+     */
+    public List<StudentGradingSystem.Student> findTopStudents(String department, int limit) {
+        return findTopStudents(department, DEFAULT_MIN_GPA, limit);
+    }
+
+    /**
+     * @return up to {@code limit} students of the department with a GPA
+     *         strictly above {@code minGpa}, best first
+     */
+    public List<StudentGradingSystem.Student> findTopStudents(String department, double minGpa, int limit) {
+        Partition partition = partitions.get(department);
+        if (partition == null) {
+            return Collections.emptyList();
+        }
+        List<StudentGradingSystem.Student> result = new ArrayList<>(Math.min(limit, partition.size));
+        // Double.compare ranks NaN above every GPA, so unknown GPAs sit at the
+        // front; skip them as the scan's "gpa > minGpa" test would
+        int start = 0;
+        while (start < partition.size && Double.isNaN(partition.gpas[start])) {
+            start++;
+        }
+        for (int i = start; i < partition.size && result.size() < limit && partition.gpas[i] > minGpa; i++) {
+            result.add(partition.students[i]);
+        }
+        return result;
+    }
+
+    public int size(String department) {
+        Partition partition = partitions.get(department);
+        return partition == null ? 0 : partition.size;
+    }
+
+    /** One department, sorted by GPA descending. */
+    private static final class Partition {
+        private double[] gpas = new double[8];
+        private StudentGradingSystem.Student[] students = new StudentGradingSystem.Student[8];
+        private int size;
+
+        void insert(StudentGradingSystem.Student student) {
+            if (size == gpas.length) {
+                gpas = Arrays.copyOf(gpas, size * 2);
+                students = Arrays.copyOf(students, size * 2);
+            }
+            double gpa = student.getGpa();
+            int position = firstBelow(gpa);
+            System.arraycopy(gpas, position, gpas, position + 1, size - position);
+            System.arraycopy(students, position, students, position + 1, size - position);
+            gpas[position] = gpa;
+            students[position] = student;
+            size++;
+        }
+
+        boolean remove(StudentGradingSystem.Student student) {
+            double gpa = student.getGpa();
+            for (int i = firstAtOrBelow(gpa); i < size && Double.compare(gpas[i], gpa) == 0; i++) {
+                if (students[i] == student) {
+                    System.arraycopy(gpas, i + 1, gpas, i, size - i - 1);
+                    System.arraycopy(students, i + 1, students, i, size - i - 1);
+                    students[--size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** First position whose GPA is strictly lower (after all equal GPAs). */
+        private int firstBelow(double gpa) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Double.compare(gpas[mid], gpa) >= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** First position whose GPA is lower than or equal to the given one. */
+        private int firstAtOrBelow(double gpa) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Double.compare(gpas[mid], gpa) > 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
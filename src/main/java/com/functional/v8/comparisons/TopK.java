@@ -0,0 +1,188 @@
+package com.functional.v8.comparisons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Keeps the k elements with the highest keys seen so far.
+ *
+ * A bounded min-heap: the root is the weakest of the current top k, so each
+ * new element is either rejected with one comparison or replaces the root in
+ * O(log k). Selecting the top k of n elements costs O(n log k) instead of the
+ * O(n log n) of sort-then-limit.
+ *
+ * Keys are stored as primitive doubles next to the values, so comparisons
+ * never box. Ties are broken by arrival order (earlier wins), which gives the
+ * same result as a stable sort by descending key.
+ *
+ * The arrays start small and double up to k as elements arrive, so a k far
+ * larger than the input (e.g. "everyone", Integer.MAX_VALUE) costs only what
+ * is actually retained.
+ *
+ * @param <T> element type
+ */
+public final class TopK<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private double[] keys;
+    private long[] sequences;
+    private Object[] values;
+    private int size;
+    private long seen;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.k = k;
+        int capacity = Math.min(k, INITIAL_CAPACITY);
+        this.keys = new double[capacity];
+        this.sequences = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * A Collector returning the top k elements, highest key first.
+     * Safe for parallel streams: per-thread heaps are merged, and arrival
+     * order is preserved across segments so ties resolve as in a sequential
+     * run.
+     */
+    public static <T> Collector<T, ?, List<T>> collector(int k, ToDoubleFunction<? super T> key) {
+        return Collector.of(
+                () -> new TopK<T>(k),
+                (heap, value) -> heap.offer(key.applyAsDouble(value), value),
+                TopK::merge,
+                TopK::toList);
+    }
+
+    public void offer(double key, T value) {
+        offer(key, seen++, value);
+    }
+
+    private void offer(double key, long sequence, T value) {
+        if (size < k) {
+            if (size == keys.length) {
+                grow();
+            }
+            keys[size] = key;
+            sequences[size] = sequence;
+            values[size] = value;
+            siftUp(size++);
+        } else if (k > 0 && isWorse(keys[0], sequences[0], key, sequence)) {
+            keys[0] = key;
+            sequences[0] = sequence;
+            values[0] = value;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Merges a heap that saw its elements after this one's, and returns this.
+     */
+    public TopK<T> merge(TopK<T> later) {
+        long offset = seen;
+        for (int i = 0; i < later.size; i++) {
+            @SuppressWarnings("unchecked")
+            T value = (T) later.values[i];
+            offer(later.keys[i], later.sequences[i] + offset, value);
+        }
+        seen += later.seen;
+        return this;
+    }
+
+    /**
+     * @return the retained elements, highest key first, as a right-sized list
+     */
+    public List<T> toList() {
+        TopK<T> copy = new TopK<>(0);
+        copy.keys = Arrays.copyOf(keys, size);
+        copy.sequences = Arrays.copyOf(sequences, size);
+        copy.values = Arrays.copyOf(values, size);
+        copy.size = size;
+        Object[] ordered = new Object[size];
+        // Repeatedly remove the weakest; it goes to the back of the result
+        for (int i = size - 1; i >= 0; i--) {
+            ordered[i] = copy.values[0];
+            copy.removeRoot();
+        }
+        @SuppressWarnings("unchecked")
+        List<T> result = (List<T>) new ArrayList<>(Arrays.asList(ordered));
+        return Collections.unmodifiableList(result);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        // size < k here, so the new capacity is at least size + 1
+        int capacity = (int) Math.min((long) k, Math.max(1L, 2L * keys.length));
+        keys = Arrays.copyOf(keys, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    private void removeRoot() {
+        int last = --size;
+        keys[0] = keys[last];
+        sequences[0] = sequences[last];
+        values[0] = values[last];
+        values[last] = null;
+        siftDown(0, size);
+    }
+
+    /** True if (keyA, seqA) ranks below (keyB, seqB). */
+    private static boolean isWorse(double keyA, long seqA, double keyB, long seqB) {
+        int cmp = Double.compare(keyA, keyB);
+        return cmp < 0 || (cmp == 0 && seqA > seqB);
+    }
+
+    private boolean isWorse(int i, int j) {
+        return isWorse(keys[i], sequences[i], keys[j], sequences[j]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isWorse(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= n) {
+                return;
+            }
+            int right = left + 1;
+            int worst = right < n && isWorse(right, left) ? right : left;
+            if (!isWorse(worst, i)) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long sequence = sequences[i];
+        sequences[i] = sequences[j];
+        sequences[j] = sequence;
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,166 @@
+package com.functional.v17;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchPaymentEngineTest {
+
+    private final PaymentSystem system = new PaymentSystem();
+
+    private PaymentSystem.PaymentMethod methodFor(int i) {
+        return switch (i % 3) {
+            case 0 -> new PaymentSystem.CreditCard("400000000000" + (1000 + i % 9000), "12/30");
+            case 1 -> new PaymentSystem.PayPal("user" + i + "@example.com");
+            default -> new PaymentSystem.Crypto("0xwallet" + i, "BTC");
+        };
+    }
+
+    @Test
+    void shouldMatchProcessPaymentWithTheStubProcessor() throws Exception {
+        List<BatchPaymentEngine.PaymentRequest> requests = IntStream.range(0, 3_000)
+                .mapToObj(i -> new BatchPaymentEngine.PaymentRequest(methodFor(i), i * 0.5))
+                .toList();
+
+        List<PaymentResult> results;
+        try (BatchPaymentEngine engine = BatchPaymentEngine.local()) {
+            results = engine.submitAll(requests.stream()).get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(results).hasSize(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertThat(results.get(i)).isEqualTo(system.charge(requests.get(i).method(), requests.get(i).amount()));
+        }
+    }
+
+    @Test
+    void shouldOnlyBatchRequestsOfOneVariant() throws Exception {
+        List<List<BatchPaymentEngine.PaymentRequest>> batches = Collections.synchronizedList(new ArrayList<>());
+        BatchPaymentEngine.PaymentProcessor stub = BatchPaymentEngine.stubProcessor();
+        BatchPaymentEngine.PaymentProcessor recording = batch -> {
+            batches.add(batch);
+            return stub.process(batch);
+        };
+        BatchPaymentEngine.Lane lane = new BatchPaymentEngine.Lane(recording, 2, 64);
+
+        try (BatchPaymentEngine engine = new BatchPaymentEngine(lane, lane, lane, 16)) {
+            engine.submitAll(IntStream.range(0, 600)
+                    .mapToObj(i -> new BatchPaymentEngine.PaymentRequest(methodFor(i), 1.0)))
+                    .get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(batches).allSatisfy(batch -> {
+            assertThat(batch).hasSizeLessThanOrEqualTo(16);
+            assertThat(batch.stream().map(r -> r.method().getClass()).distinct()).hasSize(1);
+        });
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(600);
+    }
+
+    @Test
+    void shouldFailTheWholeBatchWhenTheProcessorThrows() throws Exception {
+        BatchPaymentEngine.Lane failing = BatchPaymentEngine.Lane.of(batch -> {
+            throw new IllegalStateException("gateway down");
+        });
+        BatchPaymentEngine.Lane ok = BatchPaymentEngine.Lane.of(BatchPaymentEngine.stubProcessor());
+
+        try (BatchPaymentEngine engine = new BatchPaymentEngine(failing, ok, ok, 8)) {
+            CompletableFuture<PaymentResult> card = engine.submit(methodFor(0), 10.0);
+            CompletableFuture<PaymentResult> payPal = engine.submit(methodFor(1), 10.0);
+
+            assertThatThrownBy(() -> card.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("gateway down");
+            assertThat(payPal.get(5, TimeUnit.SECONDS).text()).contains("PayPal payment for 10.0");
+        }
+    }
+
+    @Test
+    void shouldBlockSubmitWhenTheLaneIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BatchPaymentEngine.PaymentProcessor stub = BatchPaymentEngine.stubProcessor();
+        BatchPaymentEngine.Lane slow = new BatchPaymentEngine.Lane(batch -> {
+            release.await();
+            return stub.process(batch);
+        }, 1, 1);
+        BatchPaymentEngine.Lane ok = BatchPaymentEngine.Lane.of(stub);
+
+        try (BatchPaymentEngine engine = new BatchPaymentEngine(slow, ok, ok, 1)) {
+            CompletableFuture<PaymentResult> first = engine.submit(methodFor(0), 1.0);
+            // One request is held by the worker and one fits in the queue, so
+            // the producer must block on the other
+            Thread producer = Thread.ofVirtual().start(() -> {
+                engine.submit(methodFor(3), 2.0);
+                engine.submit(methodFor(6), 3.0);
+            });
+
+            producer.join(200);
+            assertThat(producer.isAlive()).isTrue();
+
+            release.countDown();
+            producer.join(5_000);
+            assertThat(producer.isAlive()).isFalse();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isInstanceOf(PaymentResult.CardCharge.class);
+        }
+    }
+
+    @Test
+    void shouldRejectSubmitAfterClose() throws Exception {
+        BatchPaymentEngine engine = BatchPaymentEngine.local();
+        engine.close();
+
+        assertThatThrownBy(() -> engine.submit(methodFor(0), 1.0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldFailTheBatchWhenTheProcessorThrowsAnError() throws Exception {
+        BatchPaymentEngine.Lane failing = new BatchPaymentEngine.Lane(batch -> {
+            throw new AssertionError("bug in gateway client");
+        }, 1, 16);
+        BatchPaymentEngine.Lane ok = BatchPaymentEngine.Lane.of(BatchPaymentEngine.stubProcessor());
+
+        try (BatchPaymentEngine engine = new BatchPaymentEngine(failing, ok, ok, 8)) {
+            CompletableFuture<PaymentResult> first = engine.submit(methodFor(0), 10.0);
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+
+            // The worker survives and serves the next batch
+            CompletableFuture<PaymentResult> second = engine.submit(methodFor(3), 10.0);
+            assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        }
+    }
+
+    @Test
+    void shouldCompleteEveryAcceptedRequestWhenSubmitRacesClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            BatchPaymentEngine engine = BatchPaymentEngine.local();
+            List<CompletableFuture<PaymentResult>> futures = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                int offset = p;
+                producers.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; ; i++) {
+                        try {
+                            futures.add(engine.submit(methodFor(offset + 4 * i), 1.0));
+                        } catch (IllegalStateException closed) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(2);
+            engine.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .exceptionally(e -> null)
+                    .get(5, TimeUnit.SECONDS);
+        }
+    }
+}
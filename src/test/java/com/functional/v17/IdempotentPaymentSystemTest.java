@@ -0,0 +1,215 @@
+package com.functional.v17;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotentPaymentSystemTest {
+
+    private final PaymentSystem.CreditCard card = new PaymentSystem.CreditCard("1234567890123456", "12/25");
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger charges = new AtomicInteger();
+    private final PaymentSystem counting = new PaymentSystem() {
+        @Override
+        public PaymentResult charge(PaymentMethod method, double amount) {
+            charges.incrementAndGet();
+            return super.charge(method, amount);
+        }
+    };
+
+    private IdempotentPaymentSystem cache(int maxSize) {
+        return new IdempotentPaymentSystem(counting, Duration.ofMinutes(5), maxSize, clock::get);
+    }
+
+    @Test
+    void shouldChargeOncePerKey() {
+        IdempotentPaymentSystem payments = cache(100);
+
+        PaymentResult first = payments.charge("order-1", card, 10.0);
+        PaymentResult retry = payments.charge("order-1", new PaymentSystem.CreditCard("1234567890123456", "12/25"), 10.0);
+        payments.charge("order-2", card, 10.0);
+
+        assertThat(retry).isSameAs(first);
+        assertThat(charges).hasValue(2);
+        assertThat(payments.stats()).isEqualTo(new IdempotentPaymentSystem.Stats(1, 2, 0, 2));
+        assertThat(payments.processPayment("order-1", card, 10.0)).isEqualTo(new PaymentSystem().processPayment(card, 10.0));
+    }
+
+    @Test
+    void shouldTreatTheSameKeyOnAnotherMethodAsANewCharge() {
+        IdempotentPaymentSystem payments = cache(100);
+
+        payments.charge("order-1", card, 10.0);
+        payments.charge("order-1", new PaymentSystem.PayPal("user@example.com"), 10.0);
+
+        assertThat(charges).hasValue(2);
+    }
+
+    @Test
+    void shouldRejectAReusedKeyWithADifferentAmount() {
+        IdempotentPaymentSystem payments = cache(100);
+        payments.charge("order-1", card, 10.0);
+
+        assertThatThrownBy(() -> payments.charge("order-1", card, 11.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(payments.stats().hits()).isZero();
+    }
+
+    @Test
+    void shouldNotCacheErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+        PaymentSystem crashing = new PaymentSystem() {
+            @Override
+            public PaymentResult charge(PaymentMethod method, double amount) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new StackOverflowError("gateway client recursion");
+                }
+                return super.charge(method, amount);
+            }
+        };
+        IdempotentPaymentSystem payments = new IdempotentPaymentSystem(crashing, Duration.ofMinutes(5), 10, clock::get);
+
+        assertThatThrownBy(() -> payments.charge("order-1", card, 10.0)).isInstanceOf(StackOverflowError.class);
+        assertThat(payments.stats().size()).isZero();
+        assertThat(payments.charge("order-1", card, 10.0)).isInstanceOf(PaymentResult.CardCharge.class);
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTheTtl() {
+        IdempotentPaymentSystem payments = cache(100);
+        payments.charge("order-1", card, 10.0);
+
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        payments.charge("order-1", card, 10.0);
+
+        assertThat(charges).hasValue(2);
+        assertThat(payments.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictTheOldestEntriesBeyondMaxSize() {
+        IdempotentPaymentSystem payments = cache(2);
+        payments.charge("a", card, 1.0);
+        payments.charge("b", card, 1.0);
+        payments.charge("c", card, 1.0);
+
+        payments.charge("b", card, 1.0);
+        payments.charge("a", card, 1.0);
+
+        assertThat(charges).hasValue(4);
+        assertThat(payments.stats().size()).isEqualTo(2);
+        assertThat(payments.stats().evictions()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCacheFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        PaymentSystem flaky = new PaymentSystem() {
+            @Override
+            public PaymentResult charge(PaymentMethod method, double amount) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("gateway timeout");
+                }
+                return super.charge(method, amount);
+            }
+        };
+        IdempotentPaymentSystem payments = new IdempotentPaymentSystem(flaky, Duration.ofMinutes(5), 10, clock::get);
+
+        assertThatThrownBy(() -> payments.charge("order-1", card, 10.0)).hasMessage("gateway timeout");
+        assertThat(payments.charge("order-1", card, 10.0)).isInstanceOf(PaymentResult.CardCharge.class);
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void shouldCollapseConcurrentDuplicates() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PaymentSystem slow = new PaymentSystem() {
+            @Override
+            public PaymentResult charge(PaymentMethod method, double amount) {
+                charges.incrementAndGet();
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.charge(method, amount);
+            }
+        };
+        IdempotentPaymentSystem payments = new IdempotentPaymentSystem(slow, Duration.ofMinutes(5), 10, clock::get);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PaymentResult>> results = new ArrayList<>();
+            results.add(executor.submit(() -> payments.charge("order-1", card, 10.0)));
+            entered.await();
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> payments.charge("order-1", card, 10.0)));
+            }
+            while (payments.stats().hits() < 20) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            PaymentResult first = results.get(0).get();
+            for (Future<PaymentResult> result : results) {
+                assertThat(result.get()).isSameAs(first);
+            }
+        }
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void shouldNotEvictInFlightChargesBeyondMaxSize() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PaymentSystem slowFirst = new PaymentSystem() {
+            @Override
+            public PaymentResult charge(PaymentMethod method, double amount) {
+                if (charges.incrementAndGet() == 1) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.charge(method, amount);
+            }
+        };
+        IdempotentPaymentSystem payments = new IdempotentPaymentSystem(slowFirst, Duration.ofMinutes(5), 1, clock::get);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<PaymentResult> first = executor.submit(() -> payments.charge("a", card, 1.0));
+            try {
+                entered.await();
+                payments.charge("b", card, 1.0);
+
+                Future<PaymentResult> retry = executor.submit(() -> payments.charge("a", card, 1.0));
+                while (payments.stats().hits() < 1 && !retry.isDone()) {
+                    Thread.sleep(1);
+                }
+                assertThat(retry).isNotDone();
+                assertThat(payments.stats().size()).isEqualTo(2);
+                release.countDown();
+
+                assertThat(retry.get()).isSameAs(first.get());
+            } finally {
+                release.countDown();
+            }
+        }
+        assertThat(charges).hasValue(2);
+
+        payments.charge("c", card, 1.0);
+        assertThat(payments.stats().size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.functional.v17;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentResultTest {
+
+    private final PaymentSystem system = new PaymentSystem();
+
+    @Test
+    void shouldKeepStructuredFieldsForCards() {
+        PaymentResult result = system.charge(new PaymentSystem.CreditCard("1234567890123456", "12/25"), 19.99);
+
+        assertThat(result).isEqualTo(new PaymentResult.CardCharge(1999, "3456"));
+        assertThat(result.exactAmount()).isEqualByComparingTo(new BigDecimal("19.99"));
+        assertThat(result.text()).isEqualTo("Charging 19.99 to Credit Card ending in 3456");
+    }
+
+    @Test
+    void shouldUseEightDecimalsForCrypto() {
+        PaymentResult result = system.charge(new PaymentSystem.Crypto("0xabc", "BTC"), 0.00012345);
+
+        assertThat(result).isEqualTo(new PaymentResult.CryptoTransfer(12_345, "BTC", "0xabc"));
+        assertThat(result.scale()).isEqualTo(8);
+        assertThat(result.amount()).isEqualTo(0.00012345);
+    }
+
+    @Test
+    void shouldReproduceTheLegacyStrings() {
+        PaymentSystem.PaymentMethod[] methods = {
+                new PaymentSystem.CreditCard("4000000000000042", "01/30"),
+                new PaymentSystem.PayPal("user@example.com"),
+                new PaymentSystem.Crypto("0x123abc", "ETH") };
+        double[] amounts = { 0.0, 0.01, 0.1, 2.5, 50.0, 100.0, 1234.56, 1e7, -3.75 };
+
+        for (PaymentSystem.PaymentMethod method : methods) {
+            for (double amount : amounts) {
+                assertThat(system.processPayment(method, amount)).isEqualTo(legacy(method, amount));
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepProcessPaymentTextForAmountsChargeWouldRound() {
+        PaymentSystem.PaymentMethod card = new PaymentSystem.CreditCard("4000000000000042", "01/30");
+        double[] amounts = { 19.999, 0.005, 1.0 / 3, Double.NaN, Double.POSITIVE_INFINITY, 1e17 };
+
+        for (double amount : amounts) {
+            assertThat(system.processPayment(card, amount)).isEqualTo(legacy(card, amount));
+        }
+        assertThat(system.processPayment(card, 19.999)).isEqualTo("Charging 19.999 to Credit Card ending in 0042");
+        assertThat(system.charge(card, 19.999).text()).isEqualTo("Charging 20.0 to Credit Card ending in 0042");
+    }
+
+    @Test
+    void shouldRejectAmountsThatHaveNoMinorUnitValue() {
+        PaymentSystem.PaymentMethod card = new PaymentSystem.CreditCard("4000000000000042", "01/30");
+
+        assertThatThrownBy(() -> system.charge(card, Double.NaN)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> system.charge(card, 1e17)).isInstanceOf(ArithmeticException.class);
+    }
+
+    private static String legacy(PaymentSystem.PaymentMethod method, double amount) {
+        return switch (method) {
+            case PaymentSystem.CreditCard c ->
+                "Charging " + amount + " to Credit Card ending in " + c.cardNumber().substring(c.cardNumber().length() - 4);
+            case PaymentSystem.PayPal p -> "Processing PayPal payment for " + amount + " to " + p.email();
+            case PaymentSystem.Crypto c -> "Transferring " + amount + " " + c.coinType() + " to " + c.walletAddress();
+        };
+    }
+}
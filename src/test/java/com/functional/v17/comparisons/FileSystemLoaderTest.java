@@ -0,0 +1,69 @@
+package com.functional.v17.comparisons;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FileSystemLoaderTest {
+
+    @TempDir
+    Path root;
+
+    private void createTree() throws IOException {
+        Files.write(root.resolve("a.txt"), new byte[100]);
+        Path sub = Files.createDirectories(root.resolve("sub"));
+        Files.write(sub.resolve("b.bin"), new byte[200]);
+        Path deeper = Files.createDirectories(sub.resolve("deeper"));
+        Files.write(deeper.resolve("c.log"), new byte[300]);
+        Files.createDirectories(root.resolve("empty"));
+    }
+
+    @Test
+    void shouldLoadDirectoryTree() throws IOException {
+        createTree();
+
+        FileSystem.Directory tree = new FileSystemLoader(2).load(root);
+
+        assertThat(FileSystem.calculateTotalSizeModern(tree)).isEqualTo(600);
+        assertThat(tree.children()).hasSize(3);
+        assertThat(tree.children().get(0)).isEqualTo(new FileSystem.File("a.txt", 100));
+        assertThat(((FileSystem.Directory) tree.children().get(1)).name()).isEqualTo("empty");
+    }
+
+    @Test
+    void shouldStreamTotalsWithoutBuildingTheTree() throws IOException {
+        createTree();
+
+        assertThat(new FileSystemLoader().totalSize(root)).isEqualTo(600);
+    }
+
+    @Test
+    void shouldRejectRegularFiles() throws IOException {
+        Path file = Files.write(root.resolve("plain.txt"), new byte[1]);
+
+        assertThatThrownBy(() -> new FileSystemLoader().load(file)).isInstanceOf(NotDirectoryException.class);
+    }
+
+    @Test
+    void shouldFollowASymlinkedRoot(@TempDir Path elsewhere) throws IOException {
+        createTree();
+        Path link = elsewhere.resolve("link");
+        try {
+            Files.createSymbolicLink(link, root);
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "Symbolic links not supported: " + e);
+        }
+
+        FileSystem.Directory tree = new FileSystemLoader().load(link);
+
+        assertThat(tree.name()).isEqualTo("link");
+        assertThat(FileSystem.calculateTotalSizeModern(tree)).isEqualTo(600);
+        assertThat(new FileSystemLoader().totalSize(link)).isEqualTo(600);
+    }
+}
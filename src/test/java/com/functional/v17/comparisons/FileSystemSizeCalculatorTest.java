@@ -0,0 +1,74 @@
+package com.functional.v17.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemSizeCalculatorTest {
+
+    @Test
+    void shouldMatchRecursiveCalculation() {
+        FileSystem.Directory root = new FileSystem.Directory("root", List.of(
+                new FileSystem.File("f1", 100),
+                new FileSystem.Directory("sub", List.of(new FileSystem.File("f2", 200))),
+                new FileSystem.Directory("empty", List.of())));
+
+        long expected = FileSystem.calculateTotalSizeModern(root);
+
+        assertThat(FileSystemSizeCalculator.calculateTotalSizeIterative(root)).isEqualTo(expected);
+        assertThat(FileSystemSizeCalculator.calculateTotalSizeParallel(root)).isEqualTo(expected);
+        assertThat(FileSystemSizeCalculator.calculateTotalSizeIterative(new FileSystem.File("f", 7))).isEqualTo(7);
+    }
+
+    @Test
+    void shouldSplitWideDirectories() {
+        List<FileSystem.Node> children = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            children.add(i % 1000 == 0
+                    ? new FileSystem.Directory("d" + i, List.of(new FileSystem.File("x", 1)))
+                    : new FileSystem.File("f" + i, i));
+        }
+        FileSystem.Directory root = new FileSystem.Directory("root", children);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThat(FileSystemSizeCalculator.calculateTotalSizeParallel(root, pool, 64))
+                    .isEqualTo(FileSystem.calculateTotalSizeModern(root));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldSplitBushyTreesOfSmallDirectories() {
+        FileSystem.Directory root = bushy(14);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThat(FileSystemSizeCalculator.calculateTotalSizeParallel(root, pool, 1024))
+                    .isEqualTo(FileSystem.calculateTotalSizeModern(root));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** A binary tree of the given depth, every directory holding one file of size 1. */
+    private static FileSystem.Directory bushy(int depth) {
+        if (depth == 0) {
+            return new FileSystem.Directory("leaf", List.of(new FileSystem.File("f", 1)));
+        }
+        return new FileSystem.Directory("d" + depth,
+                List.of(bushy(depth - 1), bushy(depth - 1), new FileSystem.File("f", 1)));
+    }
+
+    @Test
+    void shouldHandleChainsTooDeepForRecursion() {
+        FileSystem.Node node = new FileSystem.File("leaf", 1);
+        for (int level = 0; level < 200_000; level++) {
+            node = new FileSystem.Directory("d" + level, List.of(node, new FileSystem.File("f", 2)));
+        }
+
+        assertThat(FileSystemSizeCalculator.calculateTotalSizeIterative(node)).isEqualTo(400_001);
+        assertThat(FileSystemSizeCalculator.calculateTotalSizeParallel(node)).isEqualTo(400_001);
+    }
+}
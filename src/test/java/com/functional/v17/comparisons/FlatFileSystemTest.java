@@ -0,0 +1,66 @@
+package com.functional.v17.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlatFileSystemTest {
+
+    private final FileSystem.Directory root = new FileSystem.Directory("root", List.of(
+            new FileSystem.File("f1", 100),
+            new FileSystem.Directory("sub", List.of(
+                    new FileSystem.File("f2", 200),
+                    new FileSystem.Directory("empty", List.of()))),
+            new FileSystem.File("naïve.txt", 50)));
+
+    @Test
+    void shouldCalculateSizeLikeTheRecordTree() {
+        FlatFileSystem flat = FlatFileSystem.of(root);
+
+        assertThat(flat.size()).isEqualTo(6);
+        assertThat(flat.calculateTotalSize()).isEqualTo(FileSystem.calculateTotalSizeModern(root)).isEqualTo(350);
+        assertThat(flat.subtreeSizes()[2]).isEqualTo(200);
+    }
+
+    @Test
+    void shouldStoreNodesInPreOrder() {
+        FlatFileSystem flat = FlatFileSystem.of(root);
+
+        assertThat(flat.name(0)).isEqualTo("root");
+        assertThat(flat.name(flat.firstChild(0))).isEqualTo("f1");
+        assertThat(flat.name(flat.nextSibling(flat.firstChild(0)))).isEqualTo("sub");
+        assertThat(flat.isDirectory(2)).isTrue();
+        assertThat(flat.parent(3)).isEqualTo(2);
+        assertThat(flat.name(5)).isEqualTo("naïve.txt");
+    }
+
+    @Test
+    void shouldRoundTripToRecords() {
+        assertThat(FlatFileSystem.of(root).toNode()).isEqualTo(root);
+        assertThat(FlatFileSystem.of(new FileSystem.File("solo", 9)).toNode())
+                .isEqualTo(new FileSystem.File("solo", 9));
+    }
+
+    @Test
+    void shouldHandleDeepChains() {
+        FileSystem.Node node = new FileSystem.File("leaf", 1);
+        for (int level = 0; level < 100_000; level++) {
+            node = new FileSystem.Directory("d", List.of(node));
+        }
+
+        FlatFileSystem flat = FlatFileSystem.of(node);
+
+        assertThat(flat.calculateTotalSize()).isEqualTo(1);
+        assertThat(flat.toNode()).isInstanceOf(FileSystem.Directory.class);
+    }
+
+    @Test
+    void shouldGrowTheNameArenaWithoutOverflowing() {
+        assertThat(FlatFileSystem.grownArenaCapacity(16, 17)).isEqualTo(32);
+        assertThat(FlatFileSystem.grownArenaCapacity(1 << 30, (1L << 30) + 1)).isEqualTo(FlatFileSystem.MAX_ARENA_SIZE);
+        assertThat(FlatFileSystem.grownArenaCapacity(1 << 29, 100)).isEqualTo(1 << 30);
+        assertThatThrownBy(() -> FlatFileSystem.grownArenaCapacity(FlatFileSystem.MAX_ARENA_SIZE,
+                FlatFileSystem.MAX_ARENA_SIZE + 1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
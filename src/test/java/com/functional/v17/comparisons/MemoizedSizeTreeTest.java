@@ -0,0 +1,66 @@
+package com.functional.v17.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoizedSizeTreeTest {
+
+    // root -> [ f1(100), sub -> [ f2(200), deeper -> [ f3(300) ] ], other -> [ f4(400) ] ]
+    private final FileSystem.Directory other = new FileSystem.Directory("other",
+            List.of(new FileSystem.File("f4", 400)));
+    private final FileSystem.Directory root = new FileSystem.Directory("root", List.of(
+            new FileSystem.File("f1", 100),
+            new FileSystem.Directory("sub", List.of(
+                    new FileSystem.File("f2", 200),
+                    new FileSystem.Directory("deeper", List.of(new FileSystem.File("f3", 300))))),
+            other));
+
+    @Test
+    void shouldCacheSubtreeTotals() {
+        MemoizedSizeTree tree = MemoizedSizeTree.of(root);
+
+        assertThat(tree.totalSize()).isEqualTo(FileSystem.calculateTotalSizeModern(root)).isEqualTo(1000);
+        assertThat(tree.sizeAt(tree.pathOf("sub"))).isEqualTo(500);
+        assertThat(tree.sizeAt(tree.pathOf("sub", "deeper"))).isEqualTo(300);
+    }
+
+    @Test
+    void shouldReaggregateAlongThePathOnly() {
+        MemoizedSizeTree tree = MemoizedSizeTree.of(root);
+
+        MemoizedSizeTree updated = tree.updateFileSize(tree.pathOf("sub", "deeper", "f3"), 1300);
+
+        assertThat(updated.totalSize()).isEqualTo(2000);
+        assertThat(updated.sizeAt(1)).isEqualTo(1500);
+        assertThat(FileSystem.calculateTotalSizeModern(updated.root())).isEqualTo(2000);
+        // The original is untouched and untouched subtrees are shared
+        assertThat(tree.totalSize()).isEqualTo(1000);
+        assertThat(updated.nodeAt(2)).isSameAs(other);
+    }
+
+    @Test
+    void shouldAddAndRemoveChildren() {
+        MemoizedSizeTree tree = MemoizedSizeTree.of(root);
+
+        MemoizedSizeTree added = tree.addChild(tree.pathOf("other"), new FileSystem.File("f5", 50));
+        assertThat(added.totalSize()).isEqualTo(1050);
+        assertThat(added.sizeAt(added.pathOf("other"))).isEqualTo(450);
+
+        MemoizedSizeTree removed = added.remove(added.pathOf("sub"));
+        assertThat(removed.totalSize()).isEqualTo(550);
+        assertThat(FileSystem.calculateTotalSizeModern(removed.root())).isEqualTo(550);
+
+        MemoizedSizeTree atRoot = removed.addChild(new int[0], new FileSystem.File("f6", 6));
+        assertThat(atRoot.totalSize()).isEqualTo(556);
+    }
+
+    @Test
+    void shouldRejectFileSizeUpdatesOnDirectories() {
+        MemoizedSizeTree tree = MemoizedSizeTree.of(root);
+
+        assertThatThrownBy(() -> tree.updateFileSize(tree.pathOf("sub"), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
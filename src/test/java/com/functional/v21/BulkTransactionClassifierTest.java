@@ -0,0 +1,64 @@
+package com.functional.v21;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BulkTransactionClassifierTest {
+
+    private static final String[] COUNTRIES = { "US", "UK", "JP" };
+
+    private static List<TransactionMatcher.Transaction> transactions(int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<TransactionMatcher.Transaction> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new TransactionMatcher.Transaction(new TransactionMatcher.Metadata(
+                    new TransactionMatcher.User("user" + i, random.nextInt(10, 70)),
+                    new TransactionMatcher.Location("city" + i % 10, COUNTRIES[random.nextInt(COUNTRIES.length)])),
+                    random.nextInt(0, 2_000)));
+        }
+        return result;
+    }
+
+    @Test
+    void shouldMatchAnalyzeTransactionPerRecord() {
+        List<TransactionMatcher.Transaction> transactions = transactions(20_000);
+        TransactionMatcher matcher = new TransactionMatcher();
+
+        BulkTransactionClassifier.Classification result = new BulkTransactionClassifier().classify(transactions);
+
+        assertThat(result.size()).isEqualTo(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertThat(result.message(i)).isEqualTo(matcher.analyzeTransaction(transactions.get(i)));
+        }
+    }
+
+    @Test
+    void shouldAggregateCountsAndSumsPerCategory() {
+        List<TransactionMatcher.Transaction> transactions = transactions(50_000);
+
+        BulkTransactionClassifier.Classification result = new BulkTransactionClassifier().classify(transactions);
+
+        long total = 0;
+        for (TransactionCategory category : TransactionCategory.values()) {
+            List<TransactionMatcher.Transaction> members = result.transactionsIn(category);
+            double expectedSum = members.stream().mapToDouble(TransactionMatcher.Transaction::amount).sum();
+            assertThat(result.count(category)).isEqualTo(members.size());
+            assertThat(result.sum(category)).isCloseTo(expectedSum, within(1e-6));
+            total += result.count(category);
+        }
+        assertThat(total).isEqualTo(transactions.size());
+        assertThat(result.counts()).containsOnlyKeys(TransactionCategory.values());
+    }
+
+    @Test
+    void shouldHandleAnEmptyBatch() {
+        BulkTransactionClassifier.Classification result = new BulkTransactionClassifier().classify(List.of());
+
+        assertThat(result.size()).isZero();
+        assertThat(result.count(TransactionCategory.INTERNATIONAL)).isZero();
+    }
+}
@@ -0,0 +1,128 @@
+package com.functional.v21;
+
+import org.junit.jupiter.api.Test;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FraudPipelineTest {
+
+    private static final String[] COUNTRIES = { "US", "UK", "BR" };
+
+    private static String lines(int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append("user").append(i).append(',').append(10 + i % 50).append(",city").append(i % 7).append(',')
+                    .append(COUNTRIES[i % COUNTRIES.length]).append(',').append(i % 2_000).append('\n');
+        }
+        return lines.toString();
+    }
+
+    @Test
+    void shouldClassifyEveryRecordLikeTheMatcher() throws Exception {
+        List<FraudPipeline.Decision> received = Collections.synchronizedList(new ArrayList<>());
+        FraudPipeline pipeline = new FraudPipeline(new FraudPipeline.Config(64, 4, 3), RuleEngine.defaults(),
+                decision -> decision, List.of(received::addAll));
+
+        pipeline.run(new StringReader(lines(10_000)));
+
+        TransactionMatcher matcher = new TransactionMatcher();
+        assertThat(received).hasSize(10_000);
+        assertThat(received).allSatisfy(decision ->
+                assertThat(decision.message()).isEqualTo(matcher.analyzeTransaction(decision.transaction())));
+        assertThat(pipeline.stats()).isEqualTo(new FraudPipeline.Stats(10_000, 0, 10_000, 0));
+        assertThat(pipeline.latencies()).containsOnlyKeys(FraudPipeline.INGEST, FraudPipeline.CLASSIFY,
+                FraudPipeline.ENRICH, FraudPipeline.SINK, FraudPipeline.END_TO_END);
+        LatencyHistogram endToEnd = pipeline.latencies().get(FraudPipeline.END_TO_END);
+        assertThat(endToEnd.count()).isEqualTo(10_000);
+        assertThat(endToEnd.percentileNanos(50)).isLessThanOrEqualTo(endToEnd.percentileNanos(99));
+    }
+
+    @Test
+    void shouldSkipMalformedLinesAndSurviveFailingSinks() throws Exception {
+        List<FraudPipeline.Decision> flagged = Collections.synchronizedList(new ArrayList<>());
+        FraudPipeline pipeline = new FraudPipeline(new FraudPipeline.Config(1, 2, 2), RuleEngine.defaults(),
+                decision -> decision, List.of(batch -> {
+                    for (FraudPipeline.Decision decision : batch) {
+                        if (decision.transaction().metadata().user().name().equals("boom")) {
+                            throw new IllegalStateException("sink down");
+                        }
+                        if (decision.flagged()) {
+                            flagged.add(decision);
+                        }
+                    }
+                }));
+
+        pipeline.run(new StringReader("""
+                kid,12,Leeds,UK,5
+                not a transaction
+                whale,40,Austin,US,5000
+                boom,40,Austin,US,1
+                bad,age,Austin,US,1
+                """));
+
+        assertThat(flagged).extracting(FraudPipeline.Decision::category)
+                .containsExactlyInAnyOrder(TransactionCategory.BLOCKED_MINOR, TransactionCategory.HIGH_VALUE_US);
+        assertThat(pipeline.stats()).isEqualTo(new FraudPipeline.Stats(3, 2, 2, 1));
+        assertThat(pipeline.firstFailure()).hasValueSatisfying(e -> assertThat(e).hasMessage("sink down"));
+    }
+
+    @Test
+    void shouldServeSocketConnectionsUntilClosed() throws Exception {
+        List<FraudPipeline.Decision> received = Collections.synchronizedList(new ArrayList<>());
+        FraudPipeline pipeline = new FraudPipeline(List.of(received::addAll));
+
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        try {
+            Thread service = Thread.ofVirtual().start(() -> {
+                try {
+                    pipeline.serve(server);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            for (int client = 0; client < 3; client++) {
+                try (Socket socket = new Socket(server.getInetAddress(), server.getLocalPort());
+                        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                    writer.write(lines(1_000));
+                }
+            }
+            while (pipeline.stats().delivered() < 3_000) {
+                Thread.sleep(5);
+            }
+            server.close();
+            service.join(5_000);
+            assertThat(service.isAlive()).isFalse();
+        } finally {
+            server.close();
+        }
+
+        assertThat(received).hasSize(3_000);
+    }
+
+    @Test
+    void shouldDrainAndRethrowErrorsFromAStage() {
+        List<FraudPipeline.Decision> received = Collections.synchronizedList(new ArrayList<>());
+        FraudPipeline pipeline = new FraudPipeline(new FraudPipeline.Config(1, 2, 1), RuleEngine.defaults(),
+                decision -> {
+                    if (decision.transaction().metadata().user().name().equals("user3")) {
+                        throw new AssertionError("enricher bug");
+                    }
+                    return decision;
+                }, List.of(received::addAll));
+
+        assertThatThrownBy(() -> pipeline.run(new StringReader(lines(10))))
+                .isInstanceOf(AssertionError.class).hasMessage("enricher bug");
+        assertThat(received).hasSize(9);
+        assertThat(pipeline.stats().failedBatches()).isEqualTo(1);
+    }
+}
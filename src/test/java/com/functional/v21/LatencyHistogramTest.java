@@ -0,0 +1,41 @@
+package com.functional.v21;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(10_000);
+        assertThat(histogram.percentileNanos(50)).isBetween(5_000_000L, 5_000_000L * 107 / 100);
+        assertThat(histogram.percentileNanos(99)).isBetween(9_900_000L, 9_900_000L * 107 / 100);
+        assertThat(histogram.percentileNanos(100)).isEqualTo(10_000_000L);
+        assertThat(histogram.maxNanos()).isEqualTo(10_000_000L);
+        assertThat(histogram.meanNanos()).isEqualTo(5_000_500.0);
+    }
+
+    @Test
+    void shouldCoverTheWholeLongRange() {
+        long[] values = { 0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.lowerBound(index)).isLessThanOrEqualTo(value);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+        }
+    }
+
+    @Test
+    void shouldHandleEmptyAndInvalidInput() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.percentileNanos(99)).isZero();
+        assertThatThrownBy(() -> histogram.percentileNanos(101)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
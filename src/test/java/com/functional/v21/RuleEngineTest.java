@@ -0,0 +1,64 @@
+package com.functional.v21;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RuleEngineTest {
+
+    private final TransactionMatcher matcher = new TransactionMatcher();
+
+    private static TransactionMatcher.Transaction tx(String country, int age, double amount) {
+        return new TransactionMatcher.Transaction(new TransactionMatcher.Metadata(
+                new TransactionMatcher.User("Sam", age), new TransactionMatcher.Location("Springfield", country)), amount);
+    }
+
+    @Test
+    void shouldAgreeWithTheSwitchForTheDefaultRules() {
+        RuleEngine engine = RuleEngine.defaults();
+        String[] countries = { "US", "UK", "DE", "us", "" };
+        int[] ages = { 0, 17, 18, 30, Integer.MAX_VALUE };
+        double[] amounts = { -1.0, 0.0, 999.99, 1000.0, 1000.01, 1e9, Double.NaN, Double.POSITIVE_INFINITY };
+
+        for (String country : countries) {
+            for (int age : ages) {
+                for (double amount : amounts) {
+                    TransactionMatcher.Transaction tx = tx(country, age, amount);
+                    assertThat(engine.analyze(tx)).as("%s %d %s", country, age, amount)
+                            .isEqualTo(matcher.analyzeTransaction(tx));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldClassifyWithoutBuildingText() {
+        RuleEngine engine = RuleEngine.defaults();
+
+        assertThat(engine.classify(tx("US", 30, 5000))).isEqualTo(TransactionCategory.HIGH_VALUE_US);
+        assertThat(engine.classify(tx("US", 12, 10))).isEqualTo(TransactionCategory.STANDARD_US);
+        assertThat(engine.classify(tx("FR", 12, 10))).isEqualTo(TransactionCategory.BLOCKED_MINOR);
+        assertThat(engine.classify(engine.countryId("FR"), 10, 40)).isEqualTo(TransactionCategory.INTERNATIONAL);
+        assertThat(engine.countryId("FR")).isEqualTo(RuleEngine.OTHER_COUNTRY);
+    }
+
+    @Test
+    void shouldApplyCustomRulesInOrder() {
+        RuleEngine engine = RuleEngine.compile(List.of(
+                new RuleEngine.Rule(TransactionCategory.BLOCKED_MINOR, "CA", RuleEngine.Rule.ANY_AMOUNT, 19),
+                new RuleEngine.Rule(TransactionCategory.HIGH_VALUE_US, RuleEngine.Rule.ANY_COUNTRY, 50_000, RuleEngine.Rule.ANY_AGE),
+                RuleEngine.Rule.always(TransactionCategory.INTERNATIONAL)));
+
+        assertThat(engine.classify(tx("CA", 18, 100_000))).isEqualTo(TransactionCategory.BLOCKED_MINOR);
+        assertThat(engine.classify(tx("US", 18, 100_000))).isEqualTo(TransactionCategory.HIGH_VALUE_US);
+        assertThat(engine.classify(tx("US", 18, 10))).isEqualTo(TransactionCategory.INTERNATIONAL);
+    }
+
+    @Test
+    void shouldRequireACatchAllRule() {
+        assertThatThrownBy(() -> RuleEngine.compile(List.of(
+                new RuleEngine.Rule(TransactionCategory.STANDARD_US, "US", RuleEngine.Rule.ANY_AMOUNT, RuleEngine.Rule.ANY_AGE))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
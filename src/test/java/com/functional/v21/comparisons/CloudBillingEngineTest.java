@@ -1,7 +1,11 @@
 package com.functional.v21.comparisons;
 
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CloudBillingEngineTest {
 
@@ -40,4 +44,46 @@ class CloudBillingEngineTest {
         assertThat(engine.calculateCostLegacy(nullUsage)).isEqualTo(0.0);
         assertThat(engine.calculateCostModern(nullUsage)).isEqualTo(0.0);
     }
+
+    @Test
+    void shouldRateBatchesExactlyLikeTheModernSwitch() {
+        String[] regions = { "EU", "US", "APAC", null };
+        String[] tiers = { "PREMIUM", "STANDARD", "BASIC", null };
+        SplittableRandom random = new SplittableRandom(7);
+        List<CloudBillingEngine.Usage> usages = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            usages.add(new CloudBillingEngine.Usage(new CloudBillingEngine.Resource("VM",
+                    new CloudBillingEngine.Identity(regions[random.nextInt(regions.length)], tiers[random.nextInt(tiers.length)])),
+                    random.nextDouble(0, 1_000_000)));
+        }
+
+        UsageBatch batch = UsageBatch.of(usages);
+        long[] costs = engine.rate(batch);
+
+        Money expectedTotal = Money.ZERO;
+        for (int i = 0; i < usages.size(); i++) {
+            Money expected = engine.calculateCostExact(usages.get(i));
+            assertThat(costs[i]).isEqualTo(expected.micros());
+            expectedTotal = expectedTotal.plus(expected);
+        }
+        assertThat(engine.totalExact(batch)).isEqualTo(expectedTotal);
+    }
+
+    @Test
+    void shouldKeepDoubleSemanticsAndRejectUnbillableQuantitiesExactly() {
+        for (double quantity : new double[] { Double.NaN, Double.POSITIVE_INFINITY, 1e13 }) {
+            var usage = new CloudBillingEngine.Usage(
+                    new CloudBillingEngine.Resource("VM", new CloudBillingEngine.Identity("EU", "STANDARD")), quantity);
+
+            // Compared as objects, so that NaN equals NaN
+            assertThat((Object) engine.calculateCostLegacy(usage)).isEqualTo(quantity * 0.15);
+            assertThat((Object) engine.calculateCostModern(usage)).isEqualTo(quantity * 0.15);
+            assertThatThrownBy(() -> engine.calculateCostExact(usage)).isInstanceOf(ArithmeticException.class);
+        }
+
+        var ordinary = new CloudBillingEngine.Usage(
+                new CloudBillingEngine.Resource("VM", new CloudBillingEngine.Identity("EU", "PREMIUM")), 12.5);
+        assertThat(engine.calculateCostExact(ordinary)).isEqualTo(Money.parse("3.125"));
+        assertThat(engine.calculateCostModern(ordinary)).isEqualTo(3.125);
+    }
 }
@@ -0,0 +1,158 @@
+package com.functional.v21.comparisons;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceAggregatorTest {
+
+    private static final String[] TYPES = { "VM", "DB", "S3" };
+    private static final String[] TIERS = { "STANDARD", "PREMIUM" };
+
+    @TempDir
+    Path dir;
+
+    private final CloudBillingEngine engine = new CloudBillingEngine();
+
+    private static List<CloudBillingEngine.Usage> usages(int count, int regions) {
+        SplittableRandom random = new SplittableRandom(11);
+        List<CloudBillingEngine.Usage> usages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            usages.add(new CloudBillingEngine.Usage(new CloudBillingEngine.Resource(TYPES[random.nextInt(TYPES.length)],
+                    new CloudBillingEngine.Identity("region-" + random.nextInt(regions), TIERS[random.nextInt(TIERS.length)])),
+                    random.nextInt(1, 1_000)));
+        }
+        return usages;
+    }
+
+    private Map<CloudBillingEngine.Identity, Money> expectedTotals(List<CloudBillingEngine.Usage> usages) {
+        Map<CloudBillingEngine.Identity, Money> totals = new HashMap<>();
+        for (CloudBillingEngine.Usage usage : usages) {
+            totals.merge(usage.resource().identity(), engine.calculateCostExact(usage), Money::plus);
+        }
+        return totals;
+    }
+
+    @Test
+    void shouldEmitOneInvoicePerTenantWithoutSpilling() throws Exception {
+        List<CloudBillingEngine.Usage> usages = usages(5_000, 20);
+        List<InvoiceAggregator.Invoice> invoices = new ArrayList<>();
+
+        try (InvoiceAggregator aggregator = new InvoiceAggregator(engine, dir, 1_000)) {
+            usages.forEach(aggregator::accept);
+            aggregator.finish(invoices::add);
+            assertThat(aggregator.spillCount()).isZero();
+        }
+
+        Map<CloudBillingEngine.Identity, Money> expected = expectedTotals(usages);
+        assertThat(invoices).hasSize(expected.size());
+        for (InvoiceAggregator.Invoice invoice : invoices) {
+            assertThat(invoice.total()).isEqualTo(expected.get(invoice.identity()));
+            assertThat(invoice.lines()).extracting(InvoiceAggregator.LineItem::type).isSorted();
+            assertThat(invoice.lines().stream().mapToLong(InvoiceAggregator.LineItem::usages).sum()).isPositive();
+        }
+        assertThat(invoices).extracting(invoice -> invoice.identity().region() + "/" + invoice.identity().tier()).isSorted();
+    }
+
+    @Test
+    void shouldSpillAndMergeUnderASmallBudget() throws Exception {
+        List<CloudBillingEngine.Usage> usages = usages(50_000, 2_000);
+        List<InvoiceAggregator.Invoice> invoices = new ArrayList<>();
+
+        try (InvoiceAggregator aggregator = new InvoiceAggregator(engine, dir, 500, 8)) {
+            IntStream.range(0, usages.size()).parallel().forEach(i -> aggregator.accept(usages.get(i)));
+            assertThat(aggregator.spillCount()).isGreaterThan(1);
+            aggregator.finish(invoices::add);
+        }
+
+        Map<CloudBillingEngine.Identity, Money> expected = expectedTotals(usages);
+        assertThat(invoices).hasSize(expected.size());
+        long lineUsages = 0;
+        for (InvoiceAggregator.Invoice invoice : invoices) {
+            assertThat(invoice.total()).isEqualTo(expected.get(invoice.identity()));
+            assertThat(invoice.lines()).extracting(InvoiceAggregator.LineItem::type).doesNotHaveDuplicates();
+            lineUsages += invoice.lines().stream().mapToLong(InvoiceAggregator.LineItem::usages).sum();
+        }
+        assertThat(lineUsages).isEqualTo(usages.size());
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldMergeManyRunsInBoundedPasses() throws Exception {
+        List<CloudBillingEngine.Usage> usages = usages(20_000, 500);
+        List<InvoiceAggregator.Invoice> invoices = new ArrayList<>();
+
+        try (InvoiceAggregator aggregator = new InvoiceAggregator(engine, dir, 20, 4)) {
+            usages.forEach(aggregator::accept);
+            assertThat(aggregator.spillCount()).isGreaterThan(2 * InvoiceAggregator.MAX_FAN_IN);
+            aggregator.finish(invoices::add);
+            try (var files = Files.list(dir)) {
+                assertThat(files.count()).isLessThan(InvoiceAggregator.MAX_FAN_IN);
+            }
+        }
+
+        Map<CloudBillingEngine.Identity, Money> expected = expectedTotals(usages);
+        assertThat(invoices).hasSize(expected.size());
+        for (InvoiceAggregator.Invoice invoice : invoices) {
+            assertThat(invoice.total()).isEqualTo(expected.get(invoice.identity()));
+            assertThat(invoice.lines()).extracting(InvoiceAggregator.LineItem::type).isSorted().doesNotHaveDuplicates();
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldKeepDrainedLinesWhenASpillFails() throws Exception {
+        List<CloudBillingEngine.Usage> usages = usages(2_000, 50);
+        Path missing = dir.resolve("not-yet");
+        List<InvoiceAggregator.Invoice> invoices = new ArrayList<>();
+
+        try (InvoiceAggregator aggregator = new InvoiceAggregator(engine, missing, 20, 4)) {
+            int failures = 0;
+            for (int i = 0; i < usages.size(); i++) {
+                if (i == usages.size() / 2) {
+                    Files.createDirectory(missing);
+                }
+                try {
+                    aggregator.accept(usages.get(i));
+                } catch (UncheckedIOException e) {
+                    failures++;
+                }
+            }
+            assertThat(failures).isPositive();
+            assertThat(aggregator.spillCount()).isPositive();
+            aggregator.finish(invoices::add);
+        }
+
+        Map<CloudBillingEngine.Identity, Money> expected = expectedTotals(usages);
+        assertThat(invoices).hasSize(expected.size());
+        for (InvoiceAggregator.Invoice invoice : invoices) {
+            assertThat(invoice.total()).isEqualTo(expected.get(invoice.identity()));
+        }
+    }
+
+    @Test
+    void shouldIgnoreUsagesWithoutATenant() throws Exception {
+        List<InvoiceAggregator.Invoice> invoices = new ArrayList<>();
+
+        try (InvoiceAggregator aggregator = new InvoiceAggregator(engine, dir, 10)) {
+            aggregator.accept(null);
+            aggregator.accept(new CloudBillingEngine.Usage(null, 5));
+            aggregator.finish(invoices::add);
+        }
+
+        assertThat(invoices).isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.functional.v21.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void shouldAddWithoutDrift() {
+        Money rate = Money.parse("0.10").plus(Money.parse("0.05"));
+
+        assertThat(rate).isEqualTo(Money.parse("0.15"));
+        assertThat(rate.toDouble()).isEqualTo(0.15);
+        assertThat(rate.times(100).toDouble()).isEqualTo(15.0);
+        assertThat(rate.toString()).isEqualTo("0.150000");
+    }
+
+    @Test
+    void shouldRoundHalfEvenToMicroUnits() {
+        assertThat(Money.parse("0.0000005")).isEqualTo(Money.ofMicros(0));
+        assertThat(Money.parse("0.0000015")).isEqualTo(Money.ofMicros(2));
+        assertThat(Money.ofMicros(5).times(0.1)).isEqualTo(Money.ofMicros(0));
+        assertThat(Money.ofMicros(15).times(0.1)).isEqualTo(Money.ofMicros(2));
+        assertThat(Money.ofMicros(-15).times(0.1)).isEqualTo(Money.ofMicros(-2));
+    }
+
+    @Test
+    void shouldMatchBigDecimalForRandomProducts() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 10_000; i++) {
+            long rate = random.nextLong(1, 10_000_000);
+            double quantity = random.nextInt(0, 100_000_000) / 1000.0;
+            BigDecimal expected = BigDecimal.valueOf(rate, Money.SCALE).multiply(BigDecimal.valueOf(quantity))
+                    .setScale(Money.SCALE, RoundingMode.HALF_EVEN);
+
+            assertThat(Money.ofMicros(rate).times(quantity).toBigDecimal()).isEqualByComparingTo(expected);
+        }
+    }
+
+    @Test
+    void shouldFallBackToBigIntegerForWideProducts() {
+        Money rate = Money.parse("3000000.5");
+
+        assertThat(rate.times(3_000_000).toBigDecimal()).isEqualByComparingTo(new BigDecimal("9000001500000"));
+        assertThatThrownBy(() -> Money.parse("9000000000000").times(9_000_000)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldFailInsteadOfOverflowing() {
+        Money max = Money.ofMicros(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofMicros(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.of(Double.NaN)).isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.functional.v21.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateCardTest {
+
+    private final CloudBillingEngine engine = new CloudBillingEngine();
+
+    @Test
+    void shouldMatchTheHardCodedRatesByDefault() {
+        RateCard card = RateCard.defaults();
+        String[] regions = { "EU", "US", "APAC", null };
+        String[] tiers = { "PREMIUM", "STANDARD", null };
+
+        for (String region : regions) {
+            for (String tier : tiers) {
+                CloudBillingEngine.Usage usage = new CloudBillingEngine.Usage(
+                        new CloudBillingEngine.Resource("VM", new CloudBillingEngine.Identity(region, tier)), 123.45);
+                assertThat(engine.calculateCost(usage, card)).as("%s/%s", region, tier)
+                        .isEqualTo(engine.calculateCostExact(usage));
+            }
+        }
+        assertThat(engine.calculateCost(null, card)).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void shouldPreferTheMostSpecificRule() {
+        RateCard card = RateCard.parse(List.of(
+                "*,*,*,1",
+                "GPU,*,*,2",
+                "*,EU,*,3",
+                "GPU,EU,*,4",
+                "*,EU,PREMIUM,5",
+                "GPU,EU,PREMIUM,6"));
+
+        assertThat(card.rate("GPU", "EU", "PREMIUM")).isEqualTo(Money.parse("6"));
+        assertThat(card.rate("GPU", "EU", "STANDARD")).isEqualTo(Money.parse("4"));
+        assertThat(card.rate("VM", "EU", "PREMIUM")).isEqualTo(Money.parse("5"));
+        assertThat(card.rate("GPU", "US", "PREMIUM")).isEqualTo(Money.parse("2"));
+        assertThat(card.rate("VM", "EU", "BASIC")).isEqualTo(Money.parse("3"));
+        assertThat(card.rate("VM", "US", "BASIC")).isEqualTo(Money.parse("1"));
+    }
+
+    @Test
+    void shouldFailWhenNothingMatches() {
+        RateCard card = RateCard.parse(List.of("VM,US,STANDARD,0.1"));
+
+        assertThatThrownBy(() -> card.rate("VM", "EU", "STANDARD")).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void shouldRejectMalformedFiles() {
+        assertThatThrownBy(() -> RateCard.parse(List.of("# header", "VM,US,0.1")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Line 2");
+        assertThatThrownBy(() -> RateCard.parse(List.of("VM,US,STANDARD,cheap")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateCard.parse(List.of("VM,US,*,0.1", "VM, US ,*,0.2")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Duplicate");
+    }
+
+    @Test
+    void shouldStayCorrectWithManyRules() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            lines.add("type" + i + ",region" + (i % 50) + ",tier" + (i % 7) + "," + i);
+        }
+        lines.add("*,*,*,-1");
+        RateCard card = RateCard.parse(lines);
+
+        for (int i = 0; i < 10_000; i += 97) {
+            assertThat(card.rate("type" + i, "region" + (i % 50), "tier" + (i % 7))).isEqualTo(Money.of(i));
+        }
+        assertThat(card.rate("type1", "region2", "tier1")).isEqualTo(Money.parse("-1"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.functional.v21.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateResolutionCacheTest {
+
+    private final CloudBillingEngine engine = new CloudBillingEngine();
+
+    private static CloudBillingEngine.Usage usage(String type, String region, String tier, double quantity) {
+        return new CloudBillingEngine.Usage(
+                new CloudBillingEngine.Resource(type, new CloudBillingEngine.Identity(region, tier)), quantity);
+    }
+
+    @Test
+    void shouldMatchTheUncachedCost() {
+        RateResolutionCache cache = RateResolutionCache.of(engine);
+        String[] regions = { "EU", "US", null };
+        String[] tiers = { "PREMIUM", "STANDARD", null };
+
+        for (int round = 0; round < 3; round++) {
+            for (String region : regions) {
+                for (String tier : tiers) {
+                    CloudBillingEngine.Usage usage = usage("VM", region, tier, 12.345);
+                    assertThat(engine.calculateCostCached(usage, cache)).isEqualTo(engine.calculateCostExact(usage));
+                }
+            }
+        }
+        assertThat(engine.calculateCostCached(null, cache)).isEqualTo(Money.ZERO);
+        assertThat(cache.stats().misses()).isLessThanOrEqualTo(9 + cache.stats().evictions());
+        assertThat(cache.stats().hits() + cache.stats().misses()).isEqualTo(27);
+    }
+
+    @Test
+    void shouldResolveEachShapeOnceWhenItFits() {
+        AtomicInteger resolutions = new AtomicInteger();
+        RateResolutionCache cache = new RateResolutionCache((type, region, tier) -> {
+            resolutions.incrementAndGet();
+            return 100_000;
+        }, 1);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.rateMicros("VM", "EU", "PREMIUM");
+        }
+
+        assertThat(resolutions).hasValue(1);
+        assertThat(cache.stats().hitRate()).isEqualTo(0.999);
+    }
+
+    @Test
+    void shouldEvictOnCollisionAndStayBounded() {
+        RateResolutionCache cache = new RateResolutionCache((type, region, tier) -> type.length(), 2);
+
+        IntStream.range(0, 100).forEach(i -> cache.rateMicros("type" + i, "EU", "STANDARD"));
+
+        assertThat(cache.capacity()).isEqualTo(2);
+        assertThat(cache.stats().misses()).isEqualTo(100);
+        assertThat(cache.stats().evictions()).isGreaterThanOrEqualTo(98);
+        assertThat(cache.rateMicros("type42", "EU", "STANDARD")).isEqualTo(6);
+    }
+
+    @Test
+    void shouldServeRateCards() {
+        RateResolutionCache cache = RateResolutionCache.of(RateCard.defaults());
+
+        assertThat(cache.rateMicros("VM", "EU", "PREMIUM")).isEqualTo(250_000);
+        assertThat(cache.rateMicros("VM", "EU", "PREMIUM")).isEqualTo(250_000);
+        assertThat(cache.stats()).isEqualTo(new RateResolutionCache.Stats(1, 1, 0));
+    }
+}
@@ -0,0 +1,43 @@
+package com.functional.v21.comparisons;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReloadableRateCardTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldSwapInTheNewCardOnReload() throws Exception {
+        Path file = Files.writeString(dir.resolve("rates.csv"), "*,*,*,0.10\n");
+        ReloadableRateCard rates = new ReloadableRateCard(file);
+        RateCard before = rates.current();
+
+        assertThat(rates.reloadIfModified()).isFalse();
+
+        Files.writeString(file, "*,*,*,0.12\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertThat(rates.reloadIfModified()).isTrue();
+        assertThat(rates.rate("VM", "US", "STANDARD")).isEqualTo(Money.parse("0.12"));
+        assertThat(before.rate("VM", "US", "STANDARD")).isEqualTo(Money.parse("0.10"));
+    }
+
+    @Test
+    void shouldKeepTheCurrentCardWhenTheFileIsBroken() throws Exception {
+        Path file = Files.writeString(dir.resolve("rates.csv"), "*,*,*,0.10\n");
+        ReloadableRateCard rates = new ReloadableRateCard(file);
+
+        Files.writeString(file, "*,*,oops\n");
+
+        assertThatThrownBy(rates::reload).isInstanceOf(IllegalArgumentException.class);
+        assertThat(rates.rate("VM", "US", "STANDARD")).isEqualTo(Money.parse("0.10"));
+    }
+}
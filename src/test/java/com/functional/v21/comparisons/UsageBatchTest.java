@@ -0,0 +1,47 @@
+package com.functional.v21.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UsageBatchTest {
+
+    private static CloudBillingEngine.Usage usage(String type, String region, String tier, double quantity) {
+        return new CloudBillingEngine.Usage(
+                new CloudBillingEngine.Resource(type, new CloudBillingEngine.Identity(region, tier)), quantity);
+    }
+
+    @Test
+    void shouldEncodeColumnsAndRoundTripRows() {
+        List<CloudBillingEngine.Usage> usages = List.of(
+                usage("VM", "EU", "PREMIUM", 10),
+                usage("DB", "EU", "STANDARD", 20),
+                usage("VM", null, "PREMIUM", 30));
+
+        UsageBatch batch = UsageBatch.of(usages);
+
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(batch.regions().size()).isEqualTo(2);
+        assertThat(batch.tiers().size()).isEqualTo(2);
+        assertThat(batch.types().valueOf(0)).isEqualTo("VM");
+        assertThat(batch.regionAt(2)).isNull();
+        assertThat(batch.quantityAt(1)).isEqualTo(20);
+        for (int i = 0; i < usages.size(); i++) {
+            assertThat(batch.usageAt(i)).isEqualTo(usages.get(i));
+        }
+    }
+
+    @Test
+    void shouldGrowAndCheckBounds() {
+        UsageBatch batch = new UsageBatch(1);
+        for (int i = 0; i < 100; i++) {
+            batch.add("VM", "US", "STANDARD", i);
+        }
+
+        assertThat(batch.size()).isEqualTo(100);
+        assertThat(batch.quantityAt(99)).isEqualTo(99);
+        assertThatThrownBy(() -> batch.quantityAt(100)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> batch.add(new CloudBillingEngine.Usage(null, 1))).isInstanceOf(NullPointerException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.functional.v8;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompensatedSumTest {
+
+    @Test
+    void shouldRecoverLowOrderBitsLostByNaiveSummation() {
+        CompensatedSum sum = new CompensatedSum();
+        double naive = 0.0;
+        double[] values = { 1.0, 1e100, 1.0, -1e100 };
+        for (double value : values) {
+            sum.add(value);
+            naive += value;
+        }
+
+        assertThat(naive).isEqualTo(0.0);
+        assertThat(sum.sum()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldCombinePartialSums() {
+        CompensatedSum left = new CompensatedSum();
+        CompensatedSum right = new CompensatedSum();
+        for (int i = 0; i < 10; i++) {
+            left.add(0.1);
+            right.add(0.1);
+        }
+
+        assertThat(left.combine(right).sum()).isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldPropagateInfinity() {
+        CompensatedSum sum = new CompensatedSum();
+        sum.add(Double.POSITIVE_INFINITY);
+        sum.add(1.0);
+
+        assertThat(sum.sum()).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    void shouldFollowIeeeRulesForNonFiniteValues() {
+        CompensatedSum sum = new CompensatedSum();
+        sum.add(Double.POSITIVE_INFINITY);
+        sum.add(Double.NEGATIVE_INFINITY);
+        assertThat(sum.sum()).isNaN();
+
+        CompensatedSum overflow = new CompensatedSum();
+        overflow.add(Double.MAX_VALUE);
+        overflow.add(Double.MAX_VALUE);
+        assertThat(overflow.sum()).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    void shouldSubtractPartialSumsAndReset() {
+        CompensatedSum total = new CompensatedSum();
+        CompensatedSum pane = new CompensatedSum();
+        pane.add(Double.POSITIVE_INFINITY);
+        pane.add(0.1);
+        total.add(1.0);
+        total.combine(pane);
+        assertThat(total.sum()).isEqualTo(Double.POSITIVE_INFINITY);
+
+        total.subtract(pane);
+        assertThat(total.sum()).isEqualTo(1.0);
+
+        total.reset();
+        assertThat(total.sum()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.functional.v8;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyStatisticsTest {
+
+    private final List<DataProcessingPipeline.Transaction> transactions = Arrays.asList(
+            new DataProcessingPipeline.Transaction("1", 100.0, "USD"),
+            new DataProcessingPipeline.Transaction("2", 150.0, "EUR"),
+            new DataProcessingPipeline.Transaction("3", 200.0, "USD"),
+            new DataProcessingPipeline.Transaction("4", 50.0, "GBP"),
+            new DataProcessingPipeline.Transaction("5", 300.0, "USD"));
+
+    @Test
+    void shouldAggregateAllCurrenciesInOnePass() {
+        CurrencyStatistics stats = transactions.stream().collect(CurrencyStatistics.collector());
+
+        assertThat(stats.currencies()).containsExactly("USD", "EUR", "GBP");
+        assertThat(stats.getCount("USD")).isEqualTo(3);
+        assertThat(stats.getSum("USD")).isEqualTo(600.0);
+        assertThat(stats.getMin("USD")).isEqualTo(100.0);
+        assertThat(stats.getMax("USD")).isEqualTo(300.0);
+        assertThat(stats.getAverage("USD")).isEqualTo(200.0);
+        assertThat(stats.getCount("JPY")).isZero();
+    }
+
+    @Test
+    void shouldMatchBatchAggregation() {
+        CurrencyStatistics fromList = transactions.stream().collect(CurrencyStatistics.collector());
+        CurrencyStatistics fromBatch = CurrencyStatistics.of(TransactionBatch.of(transactions));
+
+        assertThat(fromBatch.toString()).isEqualTo(fromList.toString());
+    }
+
+    @Test
+    void shouldMergeUnderParallelStreams() {
+        List<DataProcessingPipeline.Transaction> many = IntStream.range(0, 10_000)
+                .mapToObj(i -> new DataProcessingPipeline.Transaction(String.valueOf(i), i % 100,
+                        i % 3 == 0 ? "USD" : "EUR"))
+                .collect(Collectors.toList());
+
+        CurrencyStatistics sequential = many.stream().collect(CurrencyStatistics.collector());
+        CurrencyStatistics parallel = many.parallelStream().collect(CurrencyStatistics.collector());
+
+        assertThat(parallel.getCount("USD")).isEqualTo(sequential.getCount("USD"));
+        assertThat(parallel.getSum("EUR")).isEqualTo(sequential.getSum("EUR"));
+        assertThat(parallel.getMax("EUR")).isEqualTo(99.0);
+    }
+
+    @Test
+    void shouldAgreeWithTheTotalWhenAnAmountIsInfinite() {
+        List<DataProcessingPipeline.Transaction> withInfinity = Arrays.asList(
+                new DataProcessingPipeline.Transaction("1", 10.0, "USD"),
+                new DataProcessingPipeline.Transaction("2", Double.POSITIVE_INFINITY, "USD"));
+        DataProcessingPipeline pipeline = new DataProcessingPipeline();
+
+        assertThat(pipeline.summarizeByCurrency(withInfinity).getSum("USD"))
+                .isEqualTo(pipeline.calculateTotalInCurrency(withInfinity, "USD"))
+                .isEqualTo(Double.POSITIVE_INFINITY);
+    }
+}
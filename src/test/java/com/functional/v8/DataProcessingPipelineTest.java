@@ -5,8 +5,12 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
 
 class DataProcessingPipelineTest {
 
@@ -34,6 +38,14 @@ class DataProcessingPipelineTest {
         assertThat(grouped.get("EUR")).hasSize(1);
     }
 
+    @Test
+    void shouldSummarizeByCurrency() {
+        CurrencyStatistics stats = pipeline.summarizeByCurrency(transactions);
+
+        assertThat(stats.getSum("USD")).isEqualTo(pipeline.calculateTotalInCurrency(transactions, "USD"));
+        assertThat(stats.getCount("EUR")).isEqualTo(1);
+    }
+
     @Test
     void shouldFindHighValueTransaction() {
         Optional<DataProcessingPipeline.Transaction> highValue = pipeline.findHighValueTransaction(transactions, 250.0);
@@ -49,4 +61,97 @@ class DataProcessingPipelineTest {
 
         assertThat(highValue).isEmpty();
     }
+
+    @Test
+    void shouldCalculateTotalInCurrencyForBatch() {
+        TransactionBatch batch = TransactionBatch.of(transactions);
+
+        assertThat(pipeline.calculateTotalInCurrency(batch, "USD"))
+                .isEqualTo(pipeline.calculateTotalInCurrency(transactions, "USD"));
+        assertThat(pipeline.calculateTotalInCurrency(batch, "JPY")).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldFindHighValueTransactionInBatch() {
+        TransactionBatch batch = TransactionBatch.of(transactions);
+
+        Optional<DataProcessingPipeline.Transaction> highValue = pipeline.findHighValueTransaction(batch, 250.0);
+
+        assertThat(highValue).isPresent();
+        assertThat(highValue.get().getId()).isEqualTo("5");
+        assertThat(pipeline.findHighValueTransaction(batch, 1000.0)).isEmpty();
+    }
+
+    @Test
+    void shouldFilterBatchByCurrency() {
+        TransactionBatch batch = TransactionBatch.of(transactions);
+
+        assertThat(pipeline.filterByCurrency(batch, "USD")).containsExactly(0, 2, 4);
+        assertThat(pipeline.filterByCurrency(batch, "JPY")).isEmpty();
+    }
+
+    @Test
+    void shouldProduceSameResultsInEveryExecutionMode() {
+        List<DataProcessingPipeline.Transaction> many = IntStream.range(0, 50_000)
+                .mapToObj(i -> new DataProcessingPipeline.Transaction(String.valueOf(i), 0.1 * (i % 1000),
+                        i % 2 == 0 ? "USD" : "EUR"))
+                .collect(Collectors.toList());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DataProcessingPipeline parallel = new DataProcessingPipeline(ExecutionMode.parallel());
+            DataProcessingPipeline forkJoin = new DataProcessingPipeline(ExecutionMode.forkJoin(pool, 1000));
+
+            double expected = pipeline.calculateTotalInCurrency(many, "USD");
+            assertThat(parallel.calculateTotalInCurrency(many, "USD")).isCloseTo(expected,
+                    offset(1e-6));
+            assertThat(forkJoin.calculateTotalInCurrency(many, "USD")).isCloseTo(expected,
+                    offset(1e-6));
+
+            assertThat(forkJoin.findHighValueTransaction(many, 99.0).get().getId())
+                    .isEqualTo(pipeline.findHighValueTransaction(many, 99.0).get().getId());
+            assertThat(parallel.findHighValueTransaction(many, 99.0).get().getId()).isEqualTo("991");
+            assertThat(forkJoin.groupTransactionsByCurrency(many).get("EUR")).hasSize(25_000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldProduceBitStableForkJoinTotals() {
+        TransactionBatch batch = new TransactionBatch();
+        for (int i = 0; i < 100_000; i++) {
+            batch.add(String.valueOf(i), 1.0 / (i + 1), "USD");
+        }
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            DataProcessingPipeline forkJoin = new DataProcessingPipeline(ExecutionMode.forkJoin(pool, 512));
+            double first = forkJoin.calculateTotalInCurrency(batch, "USD");
+            for (int run = 0; run < 10; run++) {
+                assertThat(forkJoin.calculateTotalInCurrency(batch, "USD")).isEqualTo(first);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldFindAnyHighValueTransaction() {
+        DataProcessingPipeline parallel = new DataProcessingPipeline(ExecutionMode.parallel());
+
+        Optional<DataProcessingPipeline.Transaction> any = parallel.findAnyHighValueTransaction(transactions, 150.0);
+
+        assertThat(any).isPresent();
+        assertThat(any.get().getAmount()).isGreaterThan(150.0);
+        assertThat(pipeline.findAnyHighValueTransaction(transactions, 1000.0)).isEmpty();
+    }
+
+    @Test
+    void shouldSumListsAndBatchesIdenticallyWhenSequential() {
+        List<DataProcessingPipeline.Transaction> many = IntStream.range(0, 10_000)
+                .mapToObj(i -> new DataProcessingPipeline.Transaction("t" + i, (i % 97) * 0.1 + 1e-7 * i, "USD"))
+                .collect(Collectors.toList());
+
+        assertThat(pipeline.calculateTotalInCurrency(many, "USD"))
+                .isEqualTo(pipeline.calculateTotalInCurrency(TransactionBatch.of(many), "USD"));
+    }
 }
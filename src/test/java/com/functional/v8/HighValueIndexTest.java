@@ -0,0 +1,64 @@
+package com.functional.v8;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HighValueIndexTest {
+
+    private final DataProcessingPipeline pipeline = new DataProcessingPipeline();
+    private final List<DataProcessingPipeline.Transaction> transactions = Arrays.asList(
+            new DataProcessingPipeline.Transaction("1", 100.0, "USD"),
+            new DataProcessingPipeline.Transaction("2", 150.0, "EUR"),
+            new DataProcessingPipeline.Transaction("3", 200.0, "USD"),
+            new DataProcessingPipeline.Transaction("4", 50.0, "GBP"),
+            new DataProcessingPipeline.Transaction("5", 300.0, "USD"));
+
+    @Test
+    void shouldFindFirstTransactionAboveThreshold() {
+        HighValueIndex index = HighValueIndex.of(transactions);
+
+        assertThat(index.findFirstAbove(120.0).get().getId()).isEqualTo("2");
+        assertThat(index.findFirstAbove(250.0).get().getId()).isEqualTo("5");
+        assertThat(index.findFirstAbove(300.0)).isEmpty();
+        assertThat(pipeline.findHighValueTransaction(index, 250.0))
+                .isEqualTo(pipeline.findHighValueTransaction(transactions, 250.0));
+    }
+
+    @Test
+    void shouldFindAllTransactionsAboveThresholdInArrivalOrder() {
+        HighValueIndex index = HighValueIndex.of(transactions);
+
+        assertThat(index.findAllAbove(120.0)).extracting("id").containsExactly("2", "3", "5");
+        assertThat(index.findAllAbove(1000.0)).isEmpty();
+    }
+
+    @Test
+    void shouldStayConsistentWithLinearScanWhileAppending() {
+        Random random = new Random(42);
+        HighValueIndex index = new HighValueIndex();
+        List<DataProcessingPipeline.Transaction> appended = new ArrayList<>();
+
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                DataProcessingPipeline.Transaction t = new DataProcessingPipeline.Transaction(
+                        round + "-" + i, random.nextInt(1000), "USD");
+                index.add(t);
+                appended.add(t);
+            }
+            double threshold = random.nextInt(1000);
+
+            assertThat(index.findFirstAbove(threshold))
+                    .isEqualTo(pipeline.findHighValueTransaction(appended, threshold));
+            assertThat(index.findAllAbove(threshold)).containsExactlyElementsOf(appended.stream()
+                    .filter(t -> t.getAmount() > threshold)
+                    .collect(Collectors.toList()));
+        }
+        assertThat(index.size()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,45 @@
+package com.functional.v8;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionBatchTest {
+
+    @Test
+    void shouldDictionaryEncodeCurrencies() {
+        TransactionBatch batch = new TransactionBatch(1);
+        batch.add("1", 100.0, "USD");
+        batch.add("2", 150.0, "EUR");
+        batch.add("3", 200.0, "USD");
+
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(batch.dictionary().size()).isEqualTo(2);
+        assertThat(batch.currencyCodeAt(0)).isEqualTo(batch.currencyCodeAt(2));
+        assertThat(batch.currencyAt(1)).isEqualTo("EUR");
+        assertThat(batch.dictionary().codeOf("GBP")).isEqualTo(CurrencyDictionary.UNKNOWN);
+    }
+
+    @Test
+    void shouldRoundTripTransactions() {
+        TransactionBatch batch = TransactionBatch.of(Arrays.asList(
+                new DataProcessingPipeline.Transaction("1", 100.0, "USD"),
+                new DataProcessingPipeline.Transaction("2", 50.0, "GBP")));
+
+        DataProcessingPipeline.Transaction second = batch.transactionAt(1);
+
+        assertThat(second.getId()).isEqualTo("2");
+        assertThat(second.getAmount()).isEqualTo(50.0);
+        assertThat(second.getCurrency()).isEqualTo("GBP");
+    }
+
+    @Test
+    void shouldInternRepeatedIds() {
+        TransactionBatch batch = new TransactionBatch();
+        batch.add(new String("dup"), 1.0, "USD");
+        batch.add(new String("dup"), 2.0, "USD");
+
+        assertThat(batch.idAt(0)).isSameAs(batch.idAt(1));
+    }
+}
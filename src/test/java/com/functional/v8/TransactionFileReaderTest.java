@@ -0,0 +1,123 @@
+package com.functional.v8;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionFileReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private final DataProcessingPipeline pipeline = new DataProcessingPipeline();
+
+    private List<DataProcessingPipeline.Transaction> sample(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new DataProcessingPipeline.Transaction("tx-" + i, i % 500,
+                        i % 3 == 0 ? "USD" : "EUR"))
+                .collect(Collectors.toList());
+    }
+
+    private Path writeCsv(List<DataProcessingPipeline.Transaction> transactions) throws IOException {
+        Path file = dir.resolve("transactions.csv");
+        Files.write(file, transactions.stream()
+                .map(t -> t.getId() + "," + t.getAmount() + "," + t.getCurrency())
+                .collect(Collectors.toList()), StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    @Test
+    void shouldStreamCsvRows() throws IOException {
+        Path file = dir.resolve("small.csv");
+        Files.write(file, "1,100.0,USD\r\n\n2,150.5,EUR\n3,200,USD".getBytes(StandardCharsets.US_ASCII));
+
+        try (Stream<DataProcessingPipeline.Transaction> stream = new TransactionFileReader().stream(file,
+                TransactionFileReader.Format.CSV)) {
+            List<DataProcessingPipeline.Transaction> rows = stream.collect(Collectors.toList());
+
+            assertThat(rows).extracting("id").containsExactly("1", "2", "3");
+            assertThat(rows).extracting("amount").containsExactly(100.0, 150.5, 200.0);
+            assertThat(rows).extracting("currency").containsExactly("USD", "EUR", "USD");
+        }
+    }
+
+    @Test
+    void shouldMatchInMemoryResultsForParallelCsvWithSmallWindows() throws IOException {
+        List<DataProcessingPipeline.Transaction> transactions = sample(200_000);
+        Path file = writeCsv(transactions);
+        assertThat(Files.size(file)).isGreaterThan(3 * TransactionFileReader.MIN_WINDOW_SIZE);
+
+        try (Stream<DataProcessingPipeline.Transaction> stream = new TransactionFileReader(
+                TransactionFileReader.MIN_WINDOW_SIZE).stream(file,
+                TransactionFileReader.Format.CSV)) {
+            List<String> ids = stream.parallel().map(DataProcessingPipeline.Transaction::getId)
+                    .collect(Collectors.toList());
+
+            assertThat(ids).isEqualTo(transactions.stream().map(DataProcessingPipeline.Transaction::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void shouldRoundTripBinaryRecords() throws IOException {
+        List<DataProcessingPipeline.Transaction> transactions = sample(100_000);
+        Path file = dir.resolve("transactions.bin");
+        TransactionFileReader.writeBinary(file, transactions);
+
+        assertThat(Files.size(file)).isEqualTo(100_000L * TransactionFileReader.RECORD_SIZE);
+        try (Stream<DataProcessingPipeline.Transaction> stream = new TransactionFileReader(
+                TransactionFileReader.MIN_WINDOW_SIZE).stream(file,
+                TransactionFileReader.Format.BINARY)) {
+            double total = stream.parallel()
+                    .filter(t -> t.getCurrency().equals("USD"))
+                    .mapToDouble(DataProcessingPipeline.Transaction::getAmount)
+                    .sum();
+
+            assertThat(total).isEqualTo(pipeline.calculateTotalInCurrency(transactions, "USD"));
+        }
+    }
+
+    @Test
+    void shouldReadFilesIntoBatches() throws IOException {
+        List<DataProcessingPipeline.Transaction> transactions = sample(1_000);
+        Path binary = dir.resolve("transactions.bin");
+        TransactionFileReader.writeBinary(binary, transactions);
+        Path csv = writeCsv(transactions);
+        TransactionFileReader reader = new TransactionFileReader();
+
+        TransactionBatch fromBinary = reader.readBatch(binary, TransactionFileReader.Format.BINARY);
+        TransactionBatch fromCsv = reader.readBatch(csv, TransactionFileReader.Format.CSV);
+
+        assertThat(fromBinary.size()).isEqualTo(1_000);
+        assertThat(fromCsv.size()).isEqualTo(1_000);
+        assertThat(pipeline.calculateTotalInCurrency(fromBinary, "EUR"))
+                .isEqualTo(pipeline.calculateTotalInCurrency(fromCsv, "EUR"))
+                .isEqualTo(pipeline.calculateTotalInCurrency(transactions, "EUR"));
+    }
+
+    @Test
+    void shouldRejectTruncatedBinaryFiles() throws IOException {
+        Path file = dir.resolve("truncated.bin");
+        Files.write(file, new byte[TransactionFileReader.RECORD_SIZE + 1]);
+
+        assertThatThrownBy(() -> new TransactionFileReader().stream(file, TransactionFileReader.Format.BINARY))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldRejectWindowsBelowTheMinimum() {
+        assertThatThrownBy(() -> new TransactionFileReader(TransactionFileReader.RECORD_SIZE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package com.functional.v8;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WindowedAggregatorTest {
+
+    private static DataProcessingPipeline.Transaction tx(double amount, String currency) {
+        return new DataProcessingPipeline.Transaction("id", amount, currency);
+    }
+
+    @Test
+    void shouldResetTumblingTimeWindows() {
+        WindowedAggregator aggregator = WindowedAggregator.tumblingTime(1_000);
+        aggregator.accept(tx(100.0, "USD"), 0);
+        aggregator.accept(tx(50.0, "EUR"), 500);
+        aggregator.accept(tx(25.0, "USD"), 999);
+
+        WindowedAggregator.Snapshot first = aggregator.snapshot(999);
+        assertThat(first.getTotal("USD")).isEqualTo(125.0);
+        assertThat(first.getCount("USD")).isEqualTo(2);
+        assertThat(first.getCurrencies()).containsExactly("USD", "EUR");
+
+        aggregator.accept(tx(10.0, "USD"), 1_000);
+        WindowedAggregator.Snapshot second = aggregator.snapshot(1_200);
+        assertThat(second.getTotal("USD")).isEqualTo(10.0);
+        assertThat(second.getTotal("EUR")).isEqualTo(0.0);
+        assertThat(second.getCurrencies()).containsExactly("USD");
+    }
+
+    @Test
+    void shouldExpirePanesFromSlidingTimeWindows() {
+        WindowedAggregator aggregator = WindowedAggregator.slidingTime(3_000, 1_000);
+        aggregator.accept(tx(1.0, "USD"), 0);
+        aggregator.accept(tx(2.0, "USD"), 1_000);
+        aggregator.accept(tx(4.0, "USD"), 2_000);
+
+        assertThat(aggregator.snapshot(2_500).getTotal("USD")).isEqualTo(7.0);
+        assertThat(aggregator.snapshot(3_000).getTotal("USD")).isEqualTo(6.0);
+        assertThat(aggregator.snapshot(4_000).getTotal("USD")).isEqualTo(4.0);
+        assertThat(aggregator.snapshot(60_000).getCount("USD")).isZero();
+    }
+
+    @Test
+    void shouldDropTransactionsOlderThanTheWindow() {
+        WindowedAggregator aggregator = WindowedAggregator.slidingTime(2_000, 1_000);
+        aggregator.accept(tx(1.0, "USD"), 5_000);
+        aggregator.accept(tx(2.0, "USD"), 4_500);
+        aggregator.accept(tx(4.0, "USD"), 3_999);
+
+        assertThat(aggregator.snapshot(5_000).getTotal("USD")).isEqualTo(3.0);
+        assertThat(aggregator.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepLastNTransactionsInSlidingCountWindow() {
+        WindowedAggregator aggregator = WindowedAggregator.slidingCount(3);
+        for (int i = 1; i <= 5; i++) {
+            aggregator.accept(tx(i, i % 2 == 0 ? "EUR" : "USD"), 0);
+        }
+
+        WindowedAggregator.Snapshot snapshot = aggregator.snapshot(0);
+        assertThat(snapshot.getTotal("USD")).isEqualTo(8.0); // 3 + 5
+        assertThat(snapshot.getTotal("EUR")).isEqualTo(4.0);
+        assertThat(snapshot.getCount("USD") + snapshot.getCount("EUR")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldResetTumblingCountWindows() {
+        WindowedAggregator aggregator = WindowedAggregator.tumblingCount(2);
+        aggregator.accept(tx(1.0, "USD"), 0);
+        aggregator.accept(tx(2.0, "USD"), 0);
+        assertThat(aggregator.snapshot(0).getTotal("USD")).isEqualTo(3.0);
+
+        aggregator.accept(tx(4.0, "USD"), 0);
+        assertThat(aggregator.snapshot(0).getTotal("USD")).isEqualTo(4.0);
+    }
+
+    @Test
+    void shouldRecoverFromAnInfiniteAmountOnceItExpires() {
+        WindowedAggregator panes = WindowedAggregator.slidingTime(2_000, 1_000);
+        panes.accept(tx(Double.POSITIVE_INFINITY, "USD"), 0);
+        panes.accept(tx(5.0, "USD"), 1_000);
+        assertThat(panes.snapshot(1_500).getTotal("USD")).isEqualTo(Double.POSITIVE_INFINITY);
+        assertThat(panes.snapshot(2_500).getTotal("USD")).isEqualTo(5.0);
+
+        WindowedAggregator ring = WindowedAggregator.slidingCount(2);
+        ring.accept(tx(Double.POSITIVE_INFINITY, "USD"), 0);
+        ring.accept(tx(1.0, "USD"), 0);
+        assertThat(ring.snapshot(0).getTotal("USD")).isEqualTo(Double.POSITIVE_INFINITY);
+        ring.accept(tx(2.0, "USD"), 0);
+        assertThat(ring.snapshot(0).getTotal("USD")).isEqualTo(3.0);
+    }
+}
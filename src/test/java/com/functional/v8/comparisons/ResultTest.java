@@ -0,0 +1,26 @@
+package com.functional.v8.comparisons;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultTest {
+
+    @Test
+    void shouldMapSuccessValues() {
+        Result<Integer> result = Result.success("42").map(Integer::parseInt);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.orElse(-1)).isEqualTo(42);
+    }
+
+    @Test
+    void shouldPassFailuresThrough() {
+        Exception error = new Exception("boom");
+        Result<Integer> result = Result.<String>failure(error).map(Integer::parseInt);
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.orElse(-1)).isEqualTo(-1);
+        assertThat(result).isEqualTo(new Result.Failure<Integer>(error));
+    }
+}
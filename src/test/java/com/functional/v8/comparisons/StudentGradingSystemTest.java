@@ -1,9 +1,15 @@
 package com.functional.v8.comparisons;
 
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class StudentGradingSystemTest {
 
@@ -39,4 +45,90 @@ class StudentGradingSystemTest {
         assertThat(imperativeResult).usingRecursiveFieldByFieldElementComparator()
                 .isEqualTo(functionalResult);
     }
+
+    @Test
+    void shouldReturnSameTopStudentsWithBoundedHeap() {
+        List<StudentGradingSystem.Student> expected = system.findTopStudentsImperative(students, "CS", 3);
+
+        assertThat(system.findTopStudentsTopK(students, "CS", 3)).containsExactlyElementsOf(expected);
+        assertThat(system.findTopStudentsTopKParallel(students, "CS", 3)).containsExactlyElementsOf(expected);
+        assertThat(system.findTopStudentsTopK(students, "CS", 0)).isEmpty();
+        assertThat(system.findTopStudentsTopK(students, "CS", Integer.MAX_VALUE))
+                .containsExactlyElementsOf(system.findTopStudentsImperative(students, "CS", Integer.MAX_VALUE));
+        assertThat(system.findTopStudentsTopKParallel(students, "CS", Integer.MAX_VALUE))
+                .hasSameSizeAs(system.findTopStudentsImperative(students, "CS", Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldBreakTiesLikeStableSortOnLargeRosters() {
+        Random random = new Random(7);
+        List<StudentGradingSystem.Student> roster = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Coarse GPAs produce many ties
+            double gpa = Math.round(random.nextDouble() * 40) / 10.0;
+            roster.add(new StudentGradingSystem.Student("S" + i, i % 4 == 0 ? "EE" : "CS", gpa));
+        }
+
+        List<StudentGradingSystem.Student> expected = system.findTopStudentsFunctional(roster, "CS", 25);
+
+        assertThat(system.findTopStudentsTopK(roster, "CS", 25)).containsExactlyElementsOf(expected);
+        assertThat(system.findTopStudentsTopKParallel(roster, "CS", 25)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void shouldCollectValidAndInvalidGpasInOnePass() {
+        List<StudentGradingSystem.Student> roster = Arrays.asList(
+                new StudentGradingSystem.Student("Alice", "CS", 3.8),
+                new StudentGradingSystem.Student("Mallory", "CS", 4.7),
+                new StudentGradingSystem.Student("Trudy", "CS", -1.0),
+                null);
+
+        Map<Boolean, List<Result<StudentGradingSystem.Student>>> partitioned = system.partitionByGpaValidity(roster,
+                StudentGradingSystem.FailureMode.DETAILED);
+
+        assertThat(partitioned.get(true)).extracting(r -> r.orElse(null).getName()).containsExactly("Alice");
+        assertThat(partitioned.get(false))
+                .extracting(r -> ((Result.Failure<StudentGradingSystem.Student>) r).error().getMessage())
+                .containsExactly("Invalid GPA: 4.7", "Invalid GPA: -1.0");
+    }
+
+    @Test
+    void shouldSkipOutOfRangeGpasOnlyInTheValidatedPipeline() {
+        List<StudentGradingSystem.Student> roster = Arrays.asList(
+                new StudentGradingSystem.Student("Alice", "CS", 3.8),
+                new StudentGradingSystem.Student("Mallory", "CS", 4.7));
+
+        assertThat(system.findTopStudentsValidated(roster, "CS", 3)).extracting("name").containsExactly("Alice");
+        assertThatThrownBy(() -> system.findTopStudentsFunctional(roster, "CS", 3))
+                .isInstanceOf(RuntimeException.class).hasMessageContaining("Invalid GPA: 4.7");
+    }
+
+    @Test
+    void shouldReuseStacklessExceptionInPreallocatedMode() {
+        StudentGradingSystem.Student bad = new StudentGradingSystem.Student("Mallory", "CS", 4.7);
+
+        Result<StudentGradingSystem.Student> fast = system.checkGpa(bad, StudentGradingSystem.FailureMode.PREALLOCATED);
+        Result<StudentGradingSystem.Student> detailed = system.checkGpa(bad,
+                StudentGradingSystem.FailureMode.DETAILED);
+
+        assertThat(((Result.Failure<StudentGradingSystem.Student>) fast).error())
+                .isSameAs(StudentGradingSystem.INVALID_GPA);
+        assertThat(StudentGradingSystem.INVALID_GPA.getStackTrace()).isEmpty();
+        assertThat(((Result.Failure<StudentGradingSystem.Student>) detailed).error())
+                .hasMessage("Invalid GPA: 4.7");
+    }
+
+    @Test
+    void shouldLiftThrowingFunctionsIntoResults() {
+        Function<String, Result<Integer>> parse = StudentGradingSystem.lift(Integer::parseInt);
+
+        List<Result<Integer>> results = Arrays.asList("1", "x", "3").stream()
+                .map(parse)
+                .collect(Collectors.toList());
+
+        assertThat(results).extracting(Result::isSuccess).containsExactly(true, false, true);
+        assertThat(Arrays.asList("1", "22").stream()
+                .filter(StudentGradingSystem.wrapPredicate(v -> v.length() > 1))
+                .collect(Collectors.toList())).containsExactly("22");
+    }
 }
@@ -0,0 +1,76 @@
+package com.functional.v8.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentIndexTest {
+
+    private final StudentGradingSystem system = new StudentGradingSystem();
+    private final StudentGradingSystem.Student alice = new StudentGradingSystem.Student("Alice", "CS", 3.8);
+    private final StudentGradingSystem.Student dave = new StudentGradingSystem.Student("Dave", "CS", 3.9);
+    private final StudentGradingSystem.Student frank = new StudentGradingSystem.Student("Frank", "CS", 4.0);
+    private final List<StudentGradingSystem.Student> students = Arrays.asList(
+            alice,
+            new StudentGradingSystem.Student("Bob", "CS", 3.4),
+            new StudentGradingSystem.Student("Charlie", "EE", 3.9),
+            dave,
+            new StudentGradingSystem.Student("Eve", "CS", 3.6),
+            frank,
+            new StudentGradingSystem.Student("Grace", "CS", 3.8),
+            null);
+
+    @Test
+    void shouldAnswerLikeTheImperativeScan() {
+        StudentIndex index = StudentIndex.of(students);
+
+        for (int limit = 0; limit <= 6; limit++) {
+            assertThat(index.findTopStudents("CS", limit))
+                    .containsExactlyElementsOf(system.findTopStudentsImperative(students, "CS", limit));
+        }
+        assertThat(index.findTopStudents("EE", 3)).extracting("name").containsExactly("Charlie");
+        assertThat(index.findTopStudents("ME", 3)).isEmpty();
+        assertThat(index.size("CS")).isEqualTo(6);
+    }
+
+    @Test
+    void shouldApplyIncrementalChanges() {
+        StudentIndex index = StudentIndex.of(students);
+        StudentGradingSystem.Student improvedAlice = new StudentGradingSystem.Student("Alice", "CS", 3.95);
+
+        index.update(alice, improvedAlice);
+        assertThat(index.findTopStudents("CS", 3)).extracting("name").containsExactly("Frank", "Alice", "Dave");
+
+        assertThat(index.remove(frank)).isTrue();
+        assertThat(index.remove(frank)).isFalse();
+        assertThat(index.findTopStudents("CS", 2)).extracting("name").containsExactly("Alice", "Dave");
+
+        index.insert(new StudentGradingSystem.Student("Heidi", "EE", 3.7));
+        assertThat(index.findTopStudents("EE", 5)).extracting("name").containsExactly("Charlie", "Heidi");
+    }
+
+    @Test
+    void shouldRejectUpdatesOfUnknownStudents() {
+        StudentIndex index = StudentIndex.of(students);
+        StudentGradingSystem.Student stranger = new StudentGradingSystem.Student("Alice", "CS", 3.8);
+
+        assertThatThrownBy(() -> index.update(stranger, alice)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldSkipStudentsWithoutAGpa() {
+        List<StudentGradingSystem.Student> roster = new ArrayList<>(students);
+        StudentGradingSystem.Student unknown = new StudentGradingSystem.Student("Ivan", "CS", Double.NaN);
+        roster.add(unknown);
+        StudentIndex index = StudentIndex.of(roster);
+
+        assertThat(index.findTopStudents("CS", 3))
+                .containsExactlyElementsOf(system.findTopStudentsImperative(roster, "CS", 3));
+        assertThat(index.findTopStudents("CS", 3)).isNotEmpty().doesNotContain(unknown);
+        assertThat(index.remove(unknown)).isTrue();
+    }
+}
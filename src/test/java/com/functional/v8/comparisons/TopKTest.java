@@ -0,0 +1,56 @@
+package com.functional.v8.comparisons;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKTest {
+
+    @Test
+    void shouldKeepHighestKeysInDescendingOrder() {
+        TopK<String> top = new TopK<>(3);
+        for (String value : Arrays.asList("5", "1", "9", "3", "7")) {
+            top.offer(Double.parseDouble(value), value);
+        }
+
+        assertThat(top.toList()).containsExactly("9", "7", "5");
+        assertThat(top.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldPreferEarlierElementsOnTies() {
+        TopK<String> top = new TopK<>(2);
+        top.offer(1.0, "a");
+        top.offer(1.0, "b");
+        top.offer(1.0, "c");
+
+        assertThat(top.toList()).containsExactly("a", "b");
+    }
+
+    @Test
+    void shouldMatchSortAndLimitInParallel() {
+        List<Integer> values = IntStream.range(0, 100_000).map(i -> (i * 7919) % 1000).boxed()
+                .collect(Collectors.toList());
+
+        List<Integer> expected = values.stream().sorted((a, b) -> b - a).limit(10).collect(Collectors.toList());
+
+        assertThat(values.parallelStream().collect(TopK.collector(10, Integer::doubleValue)))
+                .containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void shouldOnlyAllocateForRetainedElementsWhenKIsHuge() {
+        TopK<Integer> top = new TopK<>(Integer.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            top.offer(i, i);
+        }
+
+        assertThat(top.toList()).hasSize(100).startsWith(99, 98).endsWith(0);
+        assertThat(IntStream.range(0, 1_000).boxed().parallel()
+                .collect(TopK.collector(Integer.MAX_VALUE, Integer::doubleValue))).hasSize(1_000);
+    }
+}